@@ -1,7 +1,27 @@
+import java.io.FileOutputStream
+import java.io.Serializable
+import java.net.ConnectException
+import java.net.ServerSocket
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.util.concurrent.TimeUnit
+
 plugins {
     java
     id("org.springframework.boot") version "3.5.5"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+// Ships from the Boot plugin's jar: generates the bean definitions at build time, into the boot
+// jar, for runs with -Dspring.aot.enabled=true
+apply(plugin = "org.springframework.boot.aot")
+
+// Tests run without AOT, so skip refreshing every test context at build time for them
+tasks.named("processTestAot") {
+    enabled = false
 }
 
 group = "edu.trincoll"
@@ -21,6 +41,11 @@ dependencies {
     // Spring Boot Starters
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    // Binary encodings of the JSON data model, negotiated per request
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
     
     // Development tools
     developmentOnly("org.springframework.boot:spring-boot-devtools")
@@ -32,7 +57,10 @@ dependencies {
 }
 
 tasks.withType<Test> {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        // Timing-sensitive tests only run through the benchmark task
+        if (name == "test") excludeTags("benchmark") else includeTags("benchmark")
+    }
     jvmArgs("-XX:+EnableDynamicAgentLoading", "-Xshare:off")
     
     // Show test output
@@ -48,6 +76,198 @@ tasks.withType<Test> {
     }
 }
 
+val benchmark by tasks.registering(Test::class) {
+    description = "Runs the @Tag(\"benchmark\") performance tests."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    maxHeapSize = "4g"
+    // Needs the startup artifacts; run through startupBenchmark below
+    filter {
+        excludeTestsMatching("*.StartupBenchmark")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
+// Startup-optimized app for autoscaled nodes, in build/startup:
+//   app/         the boot jar extracted to plain jars, which class archives need
+//   cache/       classes recorded from a training run that serves a few requests of each kind:
+//                an AppCDS archive, or with -PaotCache on JDK 24+ a JEP 483 AOT cache (loaded
+//                and linked), which is opt-in until it has been exercised on a JDK 24 toolchain
+//   jvm.args     the JVM flags that use both the archive and Spring's AOT bean definitions
+// Run it from build/startup with: java @jvm.args -jar app/app.jar
+// The archive only matches the JDK and jars it was recorded with, so rebuild it with the app.
+val startupDir = layout.buildDirectory.dir("startup")
+val startupJava = javaToolchains.launcherFor { languageVersion.set(java.toolchain.languageVersion) }
+
+interface InjectedExec {
+    @get:Inject val exec: ExecOperations
+}
+
+val extractBootJar by tasks.registering(Exec::class) {
+    description = "Extracts the boot jar into build/startup/app."
+    group = "build"
+    val bootJar = tasks.bootJar.flatMap { it.archiveFile }
+    val app = startupDir.map { it.dir("app") }
+    inputs.file(bootJar)
+    outputs.dir(app)
+    doFirst {
+        app.get().asFile.deleteRecursively()
+        executable = startupJava.get().executablePath.asFile.path
+        args("-Djarmode=tools", "-jar", bootJar.get().asFile.path, "extract",
+            "--destination", app.get().asFile.path, "--application-filename", "app.jar")
+    }
+}
+
+// What a training run asks for: a few of each kind of request, so the web server, dispatcher,
+// Jackson (JSON and Smile) and every endpoint's code get loaded. Each must answer as expected,
+// so a request that no longer fits the API fails the build instead of training nothing
+data class TrainingRequest(val method: String, val path: String, val body: String? = null,
+                           val expect: Int = 200, val accept: String = "application/json") : Serializable
+
+val trainingRequests = listOf(
+    TrainingRequest("POST", "/api/movies", """{"title":"Training One","director":"Trainer","year":1999,"rating":7}""", 201),
+    TrainingRequest("POST", "/api/movies", """{"title":"Training Two","director":"Trainer","year":2004,"rating":9}""", 201),
+    TrainingRequest("POST", "/api/movies/batch", """[{"title":"Training Three"},{"title":"Training Four"}]"""),
+    TrainingRequest("GET", "/api/movies/1"),
+    TrainingRequest("GET", "/api/movies/1", accept = "application/x-jackson-smile"),
+    TrainingRequest("GET", "/api/movies?sort=rating&limit=2"),
+    TrainingRequest("GET", "/api/movies?director=Trainer"),
+    TrainingRequest("GET", "/api/movies/search?title=training"),
+    TrainingRequest("GET", "/api/movies/search?title=traning&fuzzy=true"),
+    TrainingRequest("GET", "/api/movies/stats"),
+    TrainingRequest("PUT", "/api/movies/1", """{"title":"Training One","director":"Trainer","year":1999,"rating":8}"""),
+    TrainingRequest("PATCH", "/api/movies/2", """{"watched":true}"""),
+    TrainingRequest("PATCH", "/api/movies/batch", """[{"id":3,"rating":5}]"""),
+    // A cursor from no run of this app: 410 and the cursor to follow from, as a new follower gets
+    TrainingRequest("GET", "/api/movies/changes?since=0", expect = 410),
+    TrainingRequest("GET", "/api/movies/export", accept = "application/x-ndjson"),
+    TrainingRequest("DELETE", "/api/movies/4", expect = 204),
+)
+
+val trainStartupCache by tasks.registering {
+    description = "Records the class archive for build/startup/app from a training run."
+    group = "build"
+    dependsOn(extractBootJar)
+    val exec = objects.newInstance<InjectedExec>().exec
+    val dir = startupDir
+    val aotCache = providers.gradleProperty("aotCache").map { it.toBoolean() }.orElse(false)
+    val requests = trainingRequests
+    inputs.dir(dir.map { it.dir("app") })
+    inputs.property("aotCache", aotCache)
+    outputs.dir(dir.map { it.dir("cache") })
+    outputs.file(dir.map { it.file("jvm.args") })
+    doLast {
+        val jdk = startupJava.get()
+        val home = dir.get().asFile
+        home.resolve("cache").apply { deleteRecursively(); mkdirs() }
+        val log = home.resolve("cache/training.log")
+        val app = listOf("-Dspring.aot.enabled=true", "-jar", "app/app.jar", "--movies.persistence.enabled=false")
+
+        // Starts the app on a free port, sends the training requests, and stops it with SIGTERM,
+        // a normal exit, which is when the JVM writes what it recorded
+        fun train(vararg flags: String) {
+            val port = ServerSocket(0).use { it.localPort }
+            val process = ProcessBuilder(listOf(jdk.executablePath.asFile.path) + flags + app + "--server.port=$port")
+                .directory(home).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log)).start()
+            try {
+                val client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1).build()
+                fun send(method: String, path: String, body: String?, accept: String = "application/json"): Int {
+                    val request = HttpRequest.newBuilder(URI.create("http://localhost:$port$path"))
+                        .header("Accept", accept)
+                        .method(method, body?.let { HttpRequest.BodyPublishers.ofString(it) }
+                            ?: HttpRequest.BodyPublishers.noBody())
+                    body?.let { request.header("Content-Type", "application/json") }
+                    return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode()
+                }
+                val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60)
+                while (true) {
+                    check(process.isAlive && System.nanoTime() < deadline) { "Training run never started, see $log" }
+                    try {
+                        if (send("GET", "/api/movies", null) == 200) break
+                    } catch (notListening: ConnectException) {
+                        Thread.sleep(50)
+                    }
+                }
+                for (request in requests) {
+                    val status = send(request.method, request.path, request.body, request.accept)
+                    check(status == request.expect) {
+                        "Training request ${request.method} ${request.path} answered $status, see $log"
+                    }
+                }
+            } finally {
+                process.destroy()
+                check(process.waitFor(60, TimeUnit.SECONDS)) { "Training run didn't stop" }
+            }
+        }
+
+        val archive = if (aotCache.get() && jdk.metadata.languageVersion.asInt() >= 24) {
+            train("-XX:AOTMode=record", "-XX:AOTConfiguration=cache/app.aotconf")
+            FileOutputStream(log, true).use { out ->
+                exec.exec {
+                    workingDir = home
+                    executable = jdk.executablePath.asFile.path
+                    args(listOf("-XX:AOTMode=create", "-XX:AOTConfiguration=cache/app.aotconf",
+                        "-XX:AOTCache=cache/app.aot") + app)
+                    standardOutput = out
+                    errorOutput = out
+                }
+            }
+            "-XX:AOTCache=cache/app.aot"
+        } else {
+            train("-XX:ArchiveClassesAtExit=cache/app.jsa")
+            check(home.resolve("cache/app.jsa").isFile) { "Training run recorded no archive, see $log" }
+            "-XX:SharedArchiveFile=cache/app.jsa"
+        }
+        home.resolve("jvm.args").writeText("-Dspring.aot.enabled=true\n$archive\n")
+    }
+}
+
+// Time to first served request and RSS for the plain boot jar against the startup-optimized
+// app, several fresh JVMs each
+val startupBenchmark by tasks.registering(Test::class) {
+    description = "Compares startup time and memory of the boot jar and the startup-optimized app."
+    group = "verification"
+    dependsOn(trainStartupCache)
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    filter {
+        includeTestsMatching("*.StartupBenchmark")
+    }
+    val bootJar = tasks.bootJar.flatMap { it.archiveFile }
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-Dstartup.java=${startupJava.get().executablePath.asFile.path}",
+            "-Dstartup.dir=${startupDir.get().asFile.path}",
+            "-Dstartup.bootJar=${bootJar.get().asFile.path}")
+    })
+    outputs.upToDateWhen { false }
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
+// JMH benchmarks live in src/jmh/java. Run with ./gradlew jmh; results land in
+// build/results/jmh/results-<commit>.json so runs can be compared across commits.
+// -PjmhThreads=8 and -PjmhInclude=<regex> narrow or widen a run.
+val gitCommit = providers.exec {
+    commandLine("git", "rev-parse", "--short", "HEAD")
+    isIgnoreExitValue = true
+}.standardOutput.asText.map { it.trim().ifEmpty { "unknown" } }
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file(gitCommit.map { "results/jmh/results-$it.json" }))
+    threads.set(providers.gradleProperty("jmhThreads").map(String::toInt).orElse(1))
+    providers.gradleProperty("jmhInclude").orNull?.let { includes.add(it) }
+    jvmArgsAppend.add("-Xmx${providers.gradleProperty("jmhHeap").getOrElse("16g")}")
+}
+
 tasks.register("testReport") {
     dependsOn(tasks.test)
     doLast {
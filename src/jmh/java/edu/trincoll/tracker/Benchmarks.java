@@ -0,0 +1,73 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+
+/**
+ * Builds the pieces Spring would otherwise wire, configured like the running app.
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    // A plain ObjectMapper, as Boot builds it; unlike JsonMapper it can be copied onto the binary formats.
+    // The module is named rather than looked up, which fails from the shaded jmh jar
+    static ObjectMapper objectMapper() {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // The buffer pool the app configures
+        mapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedBoundedPool());
+        return mapper;
+    }
+
+    /** A controller over an empty in-memory catalog, without persistence. */
+    static MovieController controller() {
+        return controller(MovieTrackerProperties.Store.Backend.SKIPLIST);
+    }
+
+    static MovieController controller(MovieTrackerProperties.Store.Backend backend) {
+        ObjectMapper mapper = objectMapper();
+        MovieRepository store = switch (backend) {
+            case SKIPLIST -> new SkipListMovieRepository();
+            case COLUMNAR -> new ColumnarMovieRepository();
+        };
+        MovieTrackerProperties properties = new MovieTrackerProperties();
+        MovieCluster cluster = new MovieCluster(properties);
+        try {
+            return new MovieController(mapper,
+                    Validation.buildDefaultValidatorFactory().getValidator(),
+                    new MovieJournal(mapper, properties), store, properties,
+                    new MovieMetrics(new SimpleMeterRegistry(), store),
+                    new TitleRegistry(cluster, mapper), cluster);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Movie movie(long n) {
+        Movie movie = new Movie();
+        movie.setTitle("Movie " + n);
+        movie.setDirector("Director " + (n % 1_000));
+        movie.setYear(1900 + (int) (n % 120));
+        movie.setRating((int) (n % 11));
+        movie.setWatched(n % 3 == 0);
+        return movie;
+    }
+
+    /** Creates movies 1..size through the controller, so every index is populated. */
+    static void fill(MovieController controller, int size) {
+        for (long n = 1; n <= size; n++) {
+            controller.create(movie(n));
+        }
+    }
+}
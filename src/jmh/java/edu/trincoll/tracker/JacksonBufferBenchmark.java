@@ -0,0 +1,64 @@
+package edu.trincoll.tracker;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * One movie serialized on a fresh virtual thread, as each request is, with Jackson's default
+ * per-thread buffers and with the shared pool the app configures. Read gc.alloc.rate.norm:
+ * both include the thread, so the difference is the buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonBufferBenchmark {
+
+    @Param({"threadLocal", "sharedBounded"})
+    String pool;
+
+    private ObjectWriter writer;
+    private ExecutorService requests;
+    private final Movie movie = Benchmarks.movie(42);
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Benchmarks.objectMapper();
+        mapper.getFactory().setRecyclerPool(pool.equals("threadLocal")
+                ? JsonRecyclerPools.threadLocalPool() : JsonRecyclerPools.sharedBoundedPool());
+        writer = mapper.writerFor(Movie.class);
+        requests = Executors.newVirtualThreadPerTaskExecutor();
+        movie.setId(42L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requests.close();
+    }
+
+    @Benchmark
+    public byte[] serializeOnNewVirtualThread() throws ExecutionException, InterruptedException {
+        return requests.submit(() -> writer.writeValueAsBytes(movie)).get();
+    }
+}
@@ -0,0 +1,133 @@
+package edu.trincoll.tracker;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Every MovieController operation against a pre-filled catalog, called directly (no HTTP).
+ * Thread count comes from {@code -PjmhThreads}; all threads share one catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieControllerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int storeSize;
+
+    @Param({"SKIPLIST", "COLUMNAR"})
+    MovieTrackerProperties.Store.Backend backend;
+
+    MovieController controller;
+
+    private static final JsonNode WATCHED = JsonNodeFactory.instance.objectNode().put("watched", true);
+
+    // Titles for create() that can't collide with the pre-filled ones
+    private final AtomicLong fresh = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void fill() {
+        controller = Benchmarks.controller(backend);
+        Benchmarks.fill(controller, storeSize);
+        fresh.set(storeSize + 1L);
+    }
+
+    private long randomId() {
+        return 1 + ThreadLocalRandom.current().nextLong(storeSize);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getById() throws Exception {
+        return controller.getById(randomId(), null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> getAll() {
+        return controller.getAll(null, null, null, MovieFilter.NONE, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> getPage() {
+        return controller.getAll(50, randomId(), null, MovieFilter.NONE, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> getFiltered() {
+        // One director (a thousandth of the catalog) narrowed further by year and rating
+        String director = "Director " + ThreadLocalRandom.current().nextInt(1_000);
+        return controller.getAll(50, null, null, new MovieFilter(director, 1950, 1999, 5, null), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> topRated() {
+        return controller.getAll(20, null, "-rating", MovieFilter.NONE, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> mostRecentByDirector() {
+        String director = "Director " + ThreadLocalRandom.current().nextInt(1_000);
+        return controller.getAll(20, null, "-createdAt", new MovieFilter(director, null, null, null, null), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> searchByTitle() {
+        // Matches one movie plus the few whose number extends it
+        return controller.searchByTitle("Movie " + randomId(), false, 2);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<Movie>> searchFuzzy() {
+        // "movie" with a dropped letter; its number, off by one edit, is what narrows the candidates
+        return controller.searchByTitle("Mvie " + randomId(), true, 2);
+    }
+
+    @Benchmark
+    public ResponseEntity<Movie> create() {
+        return controller.create(Benchmarks.movie(fresh.getAndIncrement()));
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> update() throws Exception {
+        long id = randomId();
+        Movie body = Benchmarks.movie(id);
+        // Alternate between two titles so every call renames
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            body.setTitle(body.getTitle() + " (Director's Cut)");
+        }
+        return controller.update(id, body, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> patchWatched() throws Exception {
+        return controller.patch(randomId(), WATCHED, null, null);
+    }
+
+    /** Delete needs a live movie each time, so this measures a create plus its delete. */
+    @Benchmark
+    public ResponseEntity<Void> createThenDelete() throws Exception {
+        ResponseEntity<Movie> created = controller.create(Benchmarks.movie(fresh.getAndIncrement()));
+        return controller.delete(created.getBody().getId(), null);
+    }
+}
@@ -0,0 +1,72 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson encode/decode cost of a single Movie and of a 1000-movie page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieSerializationBenchmark {
+
+    private ObjectWriter movieWriter;
+    private ObjectReader movieReader;
+    private ObjectWriter pageWriter;
+    private Movie movie;
+    private byte[] movieJson;
+    private List<Movie> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        var mapper = Benchmarks.objectMapper();
+        movieWriter = mapper.writerFor(Movie.class);
+        movieReader = mapper.readerFor(Movie.class);
+        pageWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Movie.class));
+
+        movie = Benchmarks.movie(42);
+        movie.setId(42L);
+        movieJson = movieWriter.writeValueAsBytes(movie);
+        page = new ArrayList<>();
+        for (long n = 1; n <= 1_000; n++) {
+            Movie m = Benchmarks.movie(n);
+            m.setId(n);
+            page.add(m);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeMovie() throws IOException {
+        return movieWriter.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public Movie deserializeMovie() throws IOException {
+        return movieReader.readValue(movieJson);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+}
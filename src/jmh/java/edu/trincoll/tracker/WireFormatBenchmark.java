@@ -0,0 +1,89 @@
+package edu.trincoll.tracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Encode and decode cost of a large list response in each wire format, with and without the
+ * gzip that server.compression applies. Body sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    // A WireFormat name; the enum is package-private, out of reach of the generated code
+    @Param({"JSON", "SMILE", "CBOR"})
+    String format;
+
+    @Param({"1000", "10000"})
+    int pageSize;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    private ObjectWriter pageWriter;
+    private ObjectReader pageReader;
+    private List<Movie> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = WireFormat.valueOf(format).mapper(Benchmarks.objectMapper());
+        pageWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Movie.class));
+        pageReader = mapper.readerForListOf(Movie.class);
+        page = new ArrayList<>(pageSize);
+        for (long n = 1; n <= pageSize; n++) {
+            Movie movie = Benchmarks.movie(n);
+            movie.setId(n);
+            page.add(movie);
+        }
+        encoded = encode();
+        System.out.printf("%n%s%s, %,d movies: %,d bytes on the wire%n",
+                format, gzip ? "+gzip" : "", pageSize, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(pageSize * 64);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            pageWriter.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Movie> decode() throws IOException {
+        InputStream in = new ByteArrayInputStream(encoded);
+        try (InputStream body = gzip ? new GZIPInputStream(in, 8192) : in) {
+            return pageReader.readValue(body);
+        }
+    }
+}
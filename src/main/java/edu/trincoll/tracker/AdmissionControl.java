@@ -0,0 +1,157 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admits requests to the endpoints that scan the whole catalog, so one client looping on them
+ * can't take the CPU from everyone else's single-movie reads and writes.
+ * <p>
+ * Two checks, cheapest first. Each client has a token bucket per endpoint ({@link RateLimiter});
+ * an empty bucket means 429. Then a shared count of scans in flight; past
+ * {@code movies.admission.max-in-flight} the request gets 503 rather than queueing behind the
+ * others. Both answers carry Retry-After. Requests from other nodes of a cluster skip the rate
+ * check, since the node gathering them already charged the client; with clustering off there
+ * are no other nodes, and the node header buys nothing.
+ * <p>
+ * A scan stays in flight until its response is complete, including an export streaming on
+ * after the request thread has returned.
+ */
+@Component
+class AdmissionControl implements AsyncHandlerInterceptor {
+
+    /** The guarded endpoints, all GETs, by their mapping pattern. */
+    enum Endpoint {
+        LIST("/api/movies"),
+        SEARCH("/api/movies/search"),
+        EXPORT("/api/movies/export");
+
+        final String pattern;
+
+        Endpoint(String pattern) {
+            this.pattern = pattern;
+        }
+
+        static Endpoint of(Object pattern) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.pattern.equals(pattern)) {
+                    return endpoint;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String ADMITTED = AdmissionControl.class.getName() + ".admitted";
+
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final String clientHeader;
+    private final Map<Endpoint, RateLimiter> limiters = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Counter> rateLimited = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Counter> overloaded = new EnumMap<>(Endpoint.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final MovieCluster cluster;
+
+    AdmissionControl(MovieTrackerProperties properties, MeterRegistry registry, MovieCluster cluster) {
+        MovieTrackerProperties.Admission settings = properties.getAdmission();
+        this.enabled = settings.isEnabled();
+        this.maxInFlight = settings.getMaxInFlight();
+        this.clientHeader = settings.getClientHeader();
+        this.cluster = cluster;
+        for (Endpoint endpoint : Endpoint.values()) {
+            limiters.put(endpoint, new RateLimiter(settings.getRate(), settings.getBurst(),
+                    settings.getMaxClients(), System::nanoTime));
+            rateLimited.put(endpoint, rejections(registry, endpoint, "rate"));
+            overloaded.put(endpoint, rejections(registry, endpoint, "concurrency"));
+        }
+        Gauge.builder("movies.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("List, search and export requests being served")
+                .baseUnit("requests")
+                .register(registry);
+    }
+
+    private static Counter rejections(MeterRegistry registry, Endpoint endpoint, String reason) {
+        // rate: the client's bucket was empty (429); concurrency: too many scans at once (503)
+        return Counter.builder("movies.admission.rejected")
+                .description("Requests turned away before reaching the catalog")
+                .tag("endpoint", endpoint.name().toLowerCase(Locale.ROOT))
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // Async and error dispatches belong to a request already admitted or turned away
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST
+                || !HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        Endpoint endpoint = Endpoint.of(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        if (endpoint == null) {
+            return true;
+        }
+
+        if (!cluster.isPeer(request)) {
+            long wait = limiters.get(endpoint).acquire(client(request));
+            if (wait > 0) {
+                rateLimited.get(endpoint).increment();
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ceilSeconds(wait))));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded for this client");
+                return false;
+            }
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            overloaded.get(endpoint).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many catalog scans in progress");
+            return false;
+        }
+        request.setAttribute(ADMITTED, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        // Not called when the handler went async; the async dispatch that finishes it lands here
+        if (request.getAttribute(ADMITTED) != null) {
+            request.removeAttribute(ADMITTED);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = clientHeader == null ? null : request.getHeader(clientHeader);
+        return client != null ? client : request.getRemoteAddr();
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,190 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Numbered stream of catalog changes, kept in a fixed-size ring for readers to catch up from.
+ * <p>
+ * A write takes the next sequence number, stores its event in the ring slot for that number
+ * and completes the current wake-up future; it never waits on a reader. Each subscriber runs
+ * on its own virtual thread, so a slow client only delays itself. A reader that falls a full
+ * ring behind has lost events and is told to {@link Sink#reset} instead.
+ * <p>
+ * Sequence numbers keep growing across {@link #clear()}, so a cursor is never reused. They start
+ * over with the process, so the cursors handed to clients, {@link #cursor}, carry a boot epoch;
+ * a cursor from another run reads as lost and gets the same reset as one that fell behind.
+ */
+final class ChangeFeed implements MovieIndex {
+
+    // Events handed to a subscriber between checks for new ones
+    private static final int READ_BATCH = 256;
+
+    enum Type { CREATE, UPDATE, DELETE }
+
+    /** One change; {@code movie} is the new state, or null for a delete. */
+    record Event(long seq, Type type, long id, Movie movie) {
+    }
+
+    /** Where a subscription delivers events; an IOException ends the subscription. */
+    interface Sink {
+
+        void send(Event event) throws IOException;
+
+        /** Events after the cursor are gone; the reader should reload and resume after {@code head}. */
+        void reset(long head) throws IOException;
+
+        /** Nothing happened for a while; lets the sink notice a closed connection. */
+        void heartbeat() throws IOException;
+    }
+
+    private final AtomicReferenceArray<Event> ring;
+    private final int mask;
+    private final long heartbeatMillis;
+    private final AtomicLong seq = new AtomicLong();
+    // Same scheme as the list ETags in ResponseCache
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    // Lowest sequence number still worth reading; moves past everything on clear()
+    private volatile long floor = 1;
+    // Completed and replaced on every publish; subscribers wait on it when caught up
+    private final AtomicReference<CompletableFuture<Void>> signal =
+            new AtomicReference<>(new CompletableFuture<>());
+
+    /**
+     * @param capacity        ring size, rounded up to a power of two
+     * @param heartbeatMillis idle time before a heartbeat; at least 1, or idle subscribers would spin
+     */
+    ChangeFeed(int capacity, long heartbeatMillis) {
+        if (heartbeatMillis <= 0) {
+            throw new IllegalArgumentException("movies.changes.heartbeat must be at least 1ms, got " + heartbeatMillis + "ms");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    @Override
+    public void added(Movie movie) {
+        publish(Type.CREATE, movie.getId(), movie);
+    }
+
+    @Override
+    public void replaced(Movie old, Movie updated) {
+        publish(Type.UPDATE, updated.getId(), updated);
+    }
+
+    @Override
+    public void removed(Movie movie) {
+        publish(Type.DELETE, movie.getId(), null);
+    }
+
+    @Override
+    public void clear() {
+        floor = seq.get() + 1;
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+
+    /** Sequence number of the latest change, or 0 if none. */
+    long head() {
+        return seq.get();
+    }
+
+    /** The client-facing cursor for a sequence number of this run. */
+    String cursor(long seq) {
+        return epoch + "." + seq;
+    }
+
+    /**
+     * The sequence number a cursor names, or -1, before anything retained, for a cursor of
+     * another run or one that doesn't parse, so reading from it reports lost events.
+     */
+    long seqOf(String cursor) {
+        int dot = cursor.indexOf('.');
+        if (dot != epoch.length() || !cursor.startsWith(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(cursor, dot + 1, cursor.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void publish(Type type, long id, Movie movie) {
+        long n = seq.incrementAndGet();
+        ring.set((int) (n & mask), new Event(n, type, id, movie));
+        signal.getAndSet(new CompletableFuture<>()).complete(null);
+    }
+
+    /**
+     * Up to {@code max} events after {@code after}, in order; empty when caught up, or null if
+     * some of them have already left the ring.
+     */
+    List<Event> read(long after, int max) {
+        long next = after + 1;
+        long head = seq.get();
+        // Past the head is no cursor this run handed out
+        if (next < floor || head - next >= ring.length() || after > head) {
+            return null;
+        }
+        List<Event> events = new ArrayList<>(Math.min(max, (int) Math.max(0, head - after)));
+        for (long n = next; n <= head && events.size() < max; n++) {
+            Event event = ring.get((int) (n & mask));
+            if (event == null || event.seq() < n) {
+                // Numbered but not stored yet; the writer's signal will wake us
+                break;
+            }
+            if (event.seq() > n) {
+                return null;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Streams every change after {@code after} to {@code sink} on a new virtual thread until the
+     * sink fails or the returned thread is interrupted.
+     */
+    Thread subscribe(long after, Sink sink) {
+        return Thread.ofVirtual().name("movie-changes").start(() -> {
+            long cursor = after;
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    // Grab the signal before reading, so a publish in between still wakes us
+                    CompletableFuture<Void> wake = signal.get();
+                    List<Event> events = read(cursor, READ_BATCH);
+                    if (events == null) {
+                        cursor = head();
+                        sink.reset(cursor);
+                        continue;
+                    }
+                    for (Event event : events) {
+                        sink.send(event);
+                        cursor = event.seq();
+                    }
+                    if (events.isEmpty()) {
+                        try {
+                            wake.get(heartbeatMillis, TimeUnit.MILLISECONDS);
+                        } catch (TimeoutException e) {
+                            sink.heartbeat();
+                        }
+                    }
+                }
+            } catch (IOException | InterruptedException | ExecutionException e) {
+                // Client went away or the subscription was cancelled
+            }
+        });
+    }
+}
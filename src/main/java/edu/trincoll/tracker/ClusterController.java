@@ -0,0 +1,82 @@
+package edu.trincoll.tracker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Node-to-node endpoints of a sharded catalog. Not meant for clients: {@link ClusterRoutingFilter}
+ * answers 403 to any call that isn't signed by another node.
+ */
+@RestController
+@RequestMapping(value = "/internal", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ClusterController {
+
+    /** Outcome of a title reservation: null if the title was free, else the id holding it. */
+    record Reservation(Long holder) {
+    }
+
+    private final TitleRegistry titles;
+    private final MovieCluster cluster;
+    private final MovieRepository store;
+
+    public ClusterController(TitleRegistry titles, MovieCluster cluster, MovieRepository store) {
+        this.titles = titles;
+        this.cluster = cluster;
+        this.store = store;
+    }
+
+    /**
+     * POST /internal/titles?title=Alien&id=42
+     * Reserves a title held by this node for a movie on any node
+     */
+    @PostMapping("/titles")
+    public ResponseEntity<Reservation> reserveTitle(@RequestParam String title, @RequestParam long id) {
+        return ResponseEntity.ok(new Reservation(titles.reserveHere(title, id)));
+    }
+
+    /**
+     * POST /internal/titles/batch
+     * Reserves many titles held by this node at once, from a title -> id object, as a node that
+     * just recovered its movies does; returns title -> id for those another movie already holds
+     */
+    @PostMapping(value = "/titles/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Long>> reserveTitles(@RequestBody Map<String, Long> reservations) {
+        return ResponseEntity.ok(titles.reserveAllHere(reservations));
+    }
+
+    /**
+     * DELETE /internal/titles?title=Alien&id=42
+     * Frees a title held by this node, if that movie still holds it
+     */
+    @DeleteMapping("/titles")
+    public ResponseEntity<Void> releaseTitle(@RequestParam String title, @RequestParam long id) {
+        titles.releaseHere(title, id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /internal/titles?holder=2
+     * Returns title -> id for movies stored here whose title is held by the given node,
+     * so a node that just started can rebuild its reservations
+     */
+    @GetMapping("/titles")
+    public ResponseEntity<Map<String, Long>> titlesHeldBy(@RequestParam int holder) {
+        Map<String, Long> result = new HashMap<>();
+        for (Movie movie : store.values()) {
+            if (cluster.ownerOf(movie.getTitle()) == holder) {
+                result.put(movie.getTitle(), movie.getId());
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,84 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sends requests for one movie ({@code /api/movies/{id}}) to the node that owns the id and
+ * relays its answer, status, ETag and all. Requests for ids owned here, and requests that
+ * already came from another node, pass through untouched.
+ * <p>
+ * Also the one gate for node-to-node traffic: {@code /internal} endpoints, and with clustering
+ * on the node header, get 403 Forbidden unless {@link MovieCluster#isPeer} vouches for the
+ * request. With clustering off the header is simply ignored.
+ */
+@Component
+class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    // Up to 18 digits always fits a long; anything longer is left to the controller to reject
+    private static final Pattern MOVIE_PATH = Pattern.compile("/api/movies/(\\d{1,18})");
+    private static final String INTERNAL_PATH = "/internal/";
+    // Set by this server or the HTTP client for the relayed response
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection", "content-length", "date", "keep-alive", "transfer-encoding");
+
+    private final MovieCluster cluster;
+
+    ClusterRoutingFilter(MovieCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean peer = cluster.isPeer(request);
+        if (!peer && (request.getRequestURI().startsWith(INTERNAL_PATH)
+                || cluster.isEnabled() && request.getHeader(MovieCluster.LOCAL_HEADER) != null)) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), "Only other nodes of the cluster may make this request");
+            return;
+        }
+        if (cluster.isLocalRequest(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Matcher path = MOVIE_PATH.matcher(request.getRequestURI());
+        int owner = path.matches() ? cluster.ownerOf(Long.parseLong(path.group(1))) : cluster.self();
+        if (owner == cluster.self()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String pathAndQuery = request.getRequestURI()
+                + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+        MovieCluster.Reply reply;
+        try {
+            reply = cluster.relay(owner, request.getMethod(), pathAndQuery,
+                    MovieCluster.forwardedHeaders(request), body.length == 0 ? null : body);
+        } catch (MovieCluster.UnavailableException e) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+            return;
+        }
+
+        response.setStatus(reply.status());
+        reply.headers().map().forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.getOutputStream().write(reply.body());
+    }
+}
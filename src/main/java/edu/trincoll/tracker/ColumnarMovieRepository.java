@@ -0,0 +1,304 @@
+package edu.trincoll.tracker;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores movies as parallel primitive columns instead of one object per movie.
+ * <p>
+ * Rows are kept sorted by id, so lookups binary-search the id column and paging is a scan
+ * from the found slot. New ids are normally the largest yet and simply append; an older id
+ * shifts every row with a larger id, under the write lock. Ids handed out in order keep that
+ * tail short (an import block overtaken by a few creates, say), but restoring a catalog in
+ * random id order costs O(n) per movie and should go in id order instead. Deletes leave a tombstone that later inserts can reuse; tombstones are
+ * compacted away once they make up half the rows. Directors are dictionary-encoded, since a
+ * handful of directors cover many movies.
+ * <p>
+ * A read materializes a fresh {@link Movie} under the read lock, so callers never see a
+ * half-written row. createdAt is kept to the millisecond.
+ */
+final class ColumnarMovieRepository implements MovieRepository {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Rows materialized per read-lock acquisition while iterating
+    private static final int ITERATION_CHUNK = 256;
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final int NO_DIRECTOR = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte LIVE = 1;
+    private static final byte WATCHED = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columns, indexed by slot; slots [0, rows) are sorted by id
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int[] years = new int[INITIAL_CAPACITY];
+    private byte[] ratings = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] directors = new int[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private int rows;
+    private int live;
+
+    // Director dictionary; entries are kept once seen
+    private final Map<String, Integer> directorCodes = new HashMap<>();
+    private final List<String> directorNames = new ArrayList<>();
+
+    @Override
+    public Movie get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            return slot >= 0 && isLive(slot) ? materialize(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Movie movie) {
+        long id = movie.getId();
+        // Checked before anything changes, so a refused movie leaves no empty slot behind
+        byte rating = RatingByte.encode(movie.getRating());
+        lock.writeLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                slot = insertSlot(-slot - 1, id);
+            }
+            if (!isLive(slot)) {
+                live++;
+            }
+            write(slot, movie, rating);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Movie remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0 || !isLive(slot)) {
+                return null;
+            }
+            Movie removed = materialize(slot);
+            flags[slot] = 0;
+            titles[slot] = null;
+            live--;
+            if (rows - live > Math.max(INITIAL_CAPACITY, rows / 2)) {
+                compact();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterable<Movie> after(long afterId) {
+        return () -> new ChunkIterator(afterId);
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(titles, 0, rows, null);
+            Arrays.fill(flags, 0, rows, (byte) 0);
+            rows = 0;
+            live = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Binary search over the id column: slot if present, else -(insertion point) - 1
+    private int find(long id) {
+        return Arrays.binarySearch(ids, 0, rows, id);
+    }
+
+    private boolean isLive(int slot) {
+        return (flags[slot] & LIVE) != 0;
+    }
+
+    private int insertSlot(int at, long id) {
+        if (rows == ids.length) {
+            if (rows - live > rows / 4) {
+                // Reclaim tombstones before growing; the insertion point moves with them
+                compact();
+                at = -find(id) - 1;
+            } else {
+                grow(Math.max(INITIAL_CAPACITY, rows * 2));
+            }
+        }
+        if (at < rows) {
+            // Out-of-order id: shift the tail one slot right
+            int tail = rows - at;
+            System.arraycopy(ids, at, ids, at + 1, tail);
+            System.arraycopy(createdAt, at, createdAt, at + 1, tail);
+            System.arraycopy(versions, at, versions, at + 1, tail);
+            System.arraycopy(years, at, years, at + 1, tail);
+            System.arraycopy(ratings, at, ratings, at + 1, tail);
+            System.arraycopy(flags, at, flags, at + 1, tail);
+            System.arraycopy(directors, at, directors, at + 1, tail);
+            System.arraycopy(titles, at, titles, at + 1, tail);
+        }
+        ids[at] = id;
+        flags[at] = 0;
+        rows++;
+        return at;
+    }
+
+    private void write(int slot, Movie movie, byte rating) {
+        createdAt[slot] = movie.getCreatedAt() == null ? NO_TIME
+                : movie.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        versions[slot] = movie.getVersion();
+        years[slot] = movie.getYear() == null ? NO_YEAR : movie.getYear();
+        ratings[slot] = rating;
+        flags[slot] = (byte) (LIVE | (movie.isWatched() ? WATCHED : 0));
+        directors[slot] = encodeDirector(movie.getDirector());
+        titles[slot] = movie.getTitle();
+    }
+
+    private Movie materialize(int slot) {
+        Movie movie = new Movie();
+        movie.setId(ids[slot]);
+        movie.setTitle(titles[slot]);
+        movie.setDirector(directors[slot] == NO_DIRECTOR ? null : directorNames.get(directors[slot]));
+        movie.setYear(years[slot] == NO_YEAR ? null : years[slot]);
+        movie.setRating(RatingByte.decode(ratings[slot]));
+        movie.setWatched((flags[slot] & WATCHED) != 0);
+        movie.setVersion(versions[slot]);
+        long millis = createdAt[slot];
+        movie.setCreatedAt(millis == NO_TIME ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+        return movie;
+    }
+
+    private int encodeDirector(String director) {
+        if (director == null) {
+            return NO_DIRECTOR;
+        }
+        Integer code = directorCodes.get(director);
+        if (code == null) {
+            code = directorNames.size();
+            directorNames.add(director);
+            directorCodes.put(director, code);
+        }
+        return code;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        years = Arrays.copyOf(years, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        directors = Arrays.copyOf(directors, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+    }
+
+    // Slides live rows down over tombstones, keeping id order
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < rows; from++) {
+            if (isLive(from)) {
+                if (to != from) {
+                    ids[to] = ids[from];
+                    createdAt[to] = createdAt[from];
+                    versions[to] = versions[from];
+                    years[to] = years[from];
+                    ratings[to] = ratings[from];
+                    flags[to] = flags[from];
+                    directors[to] = directors[from];
+                    titles[to] = titles[from];
+                }
+                to++;
+            }
+        }
+        Arrays.fill(titles, to, rows, null);
+        Arrays.fill(flags, to, rows, (byte) 0);
+        rows = to;
+    }
+
+    /**
+     * Walks the rows in id order, copying a chunk at a time under the read lock.
+     * Resumes by id, so it tolerates inserts, deletes and compaction between chunks.
+     */
+    private final class ChunkIterator implements Iterator<Movie> {
+
+        private final List<Movie> chunk = new ArrayList<>(ITERATION_CHUNK);
+        private int next;
+        private long lastId;
+        private boolean exhausted;
+
+        ChunkIterator(long afterId) {
+            this.lastId = afterId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < chunk.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            fill();
+            return next < chunk.size();
+        }
+
+        @Override
+        public Movie next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(next++);
+        }
+
+        private void fill() {
+            chunk.clear();
+            next = 0;
+            lock.readLock().lock();
+            try {
+                int slot = find(lastId);
+                slot = slot >= 0 ? slot + 1 : -slot - 1;
+                for (; slot < rows && chunk.size() < ITERATION_CHUNK; slot++) {
+                    if (isLive(slot)) {
+                        chunk.add(materialize(slot));
+                    }
+                }
+                exhausted = slot >= rows;
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        }
+    }
+}
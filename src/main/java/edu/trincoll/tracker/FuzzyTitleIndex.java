@@ -0,0 +1,343 @@
+package edu.trincoll.tracker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Typo-tolerant title search: finds titles whose words are each within a few edits of the
+ * query's words, best matches first.
+ * <p>
+ * Title words are kept in a BK-tree, which files every word under its edit distance to its
+ * parent. By the triangle inequality, a query only has to descend into children whose
+ * distance is within {@code maxEdits} of its own distance to the parent, so a lookup touches
+ * a small part of the vocabulary rather than every title. Matching words lead to their
+ * movies through per-word postings, driven from the query word with the fewest candidates;
+ * each candidate is then scored against all query words.
+ * <p>
+ * The tree only grows: a word whose last title goes away stays in it, with no postings,
+ * until {@link #clear()}. Vocabulary grows far slower than the catalog, so this costs little.
+ */
+final class FuzzyTitleIndex implements MovieIndex {
+
+    static final int MAX_EDITS = 2;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** One movie's match quality: total edits over the query words, and how many title words went unmatched. */
+    private record Scored(long id, int edits, int extraWords) {
+    }
+
+    // Best first: fewest edits, then fewest title words left unmatched (extraWords), then lowest id
+    private static final Comparator<Scored> RANK = Comparator.comparingInt(Scored::edits)
+            .thenComparingInt(Scored::extraWords)
+            .thenComparingLong(Scored::id);
+
+    private static final class Node {
+
+        final String word;
+        // Edit distance to this node's word -> the child filed under it
+        final Map<Integer, Node> children = new ConcurrentHashMap<>(4);
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private final AtomicReference<Node> root = new AtomicReference<>();
+    // Word -> ids of titles containing it
+    private final Map<String, IdSet> postings = new ConcurrentHashMap<>();
+    // Id -> the title's distinct words, for scoring candidates
+    private final Map<Long, String[]> titles = new ConcurrentHashMap<>();
+
+    @Override
+    public void added(Movie movie) {
+        long id = movie.getId();
+        String[] words = words(movie.getTitle());
+        titles.put(id, words);
+        for (String word : words) {
+            post(word, id);
+        }
+    }
+
+    @Override
+    public void removed(Movie movie) {
+        long id = movie.getId();
+        titles.remove(id);
+        for (String word : words(movie.getTitle())) {
+            IdSet.remove(postings, word, id);
+        }
+    }
+
+    @Override
+    public void replaced(Movie old, Movie updated) {
+        if (Objects.equals(old.getTitle(), updated.getTitle())) {
+            return;
+        }
+        long id = updated.getId();
+        String[] before = words(old.getTitle());
+        String[] after = words(updated.getTitle());
+        titles.put(id, after);
+        // Only the words that changed; new ones first, so the movie never drops out of a word it keeps
+        Set<String> kept = Set.of(before);
+        for (String word : after) {
+            if (!kept.contains(word)) {
+                post(word, id);
+            }
+        }
+        Set<String> now = Set.of(after);
+        for (String word : before) {
+            if (!now.contains(word)) {
+                IdSet.remove(postings, word, id);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        root.set(null);
+        postings.clear();
+        titles.clear();
+    }
+
+    /**
+     * Ids of titles where every query word is within {@code maxEdits} of some title word, best
+     * match first, at most {@code limit} of them.
+     * <p>
+     * Short words get a smaller budget, since two edits turn a three-letter word into almost
+     * anything: none up to two characters, one up to five, {@code maxEdits} beyond.
+     */
+    List<Long> search(String query, int maxEdits, int limit) {
+        String[] terms = words(query);
+        if (terms.length == 0 || limit < 1) {
+            return List.of();
+        }
+
+        // Drive from the query word whose near matches cover the fewest titles
+        List<IdSet> driver = null;
+        long driverSize = Long.MAX_VALUE;
+        for (String term : terms) {
+            List<IdSet> lists = new ArrayList<>();
+            long size = 0;
+            for (String word : within(term, budget(term, maxEdits))) {
+                IdSet ids = postings.get(word);
+                if (ids != null) {
+                    lists.add(ids);
+                    size += ids.size;
+                }
+            }
+            if (size == 0) {
+                return List.of();
+            }
+            if (size < driverSize) {
+                driver = lists;
+                driverSize = size;
+            }
+        }
+
+        // Keep the best limit candidates in a heap whose head is the worst of them
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1, RANK.reversed());
+        Set<Long> seen = new HashSet<>();
+        for (IdSet ids : driver) {
+            for (Long id : ids.ids) {
+                if (!seen.add(id)) {
+                    continue;
+                }
+                Scored scored = score(id, terms, maxEdits);
+                if (scored == null) {
+                    continue;
+                }
+                if (best.size() < limit) {
+                    best.add(scored);
+                } else if (RANK.compare(scored, best.peek()) < 0) {
+                    best.poll();
+                    best.add(scored);
+                }
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(RANK);
+        List<Long> result = new ArrayList<>(ranked.size());
+        for (Scored scored : ranked) {
+            result.add(scored.id());
+        }
+        return result;
+    }
+
+    /**
+     * Orders movies found by {@link #search} on several nodes the way one search over all of
+     * them would have, dropping repeats, at most {@code limit} of them.
+     */
+    static List<Movie> rank(String query, int maxEdits, List<Movie> movies, int limit) {
+        String[] terms = words(query);
+        Map<Long, Movie> byId = new HashMap<>();
+        List<Scored> ranked = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            Scored scored = score(movie.getId(), words(movie.getTitle()), terms, maxEdits);
+            if (scored != null && byId.putIfAbsent(movie.getId(), movie) == null) {
+                ranked.add(scored);
+            }
+        }
+        ranked.sort(RANK);
+        List<Movie> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(byId.get(ranked.get(i).id()));
+        }
+        return result;
+    }
+
+    // Null if some query word has no title word within its budget
+    private Scored score(long id, String[] terms, int maxEdits) {
+        String[] words = titles.get(id);
+        return words == null ? null : score(id, words, terms, maxEdits);
+    }
+
+    private static Scored score(long id, String[] words, String[] terms, int maxEdits) {
+        int edits = 0;
+        for (String term : terms) {
+            int budget = budget(term, maxEdits);
+            int closest = budget + 1;
+            int[] previous = new int[term.length() + 1];
+            int[] current = new int[term.length() + 1];
+            for (String word : words) {
+                closest = Math.min(closest, distance(word, term, closest - 1, previous, current));
+                if (closest == 0) {
+                    break;
+                }
+            }
+            if (closest > budget) {
+                return null;
+            }
+            edits += closest;
+        }
+        return new Scored(id, edits, Math.max(0, words.length - terms.length));
+    }
+
+    static int budget(String term, int maxEdits) {
+        int length = term.length();
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? Math.min(1, maxEdits) : maxEdits;
+    }
+
+    private void post(String word, long id) {
+        if (IdSet.add(postings, word, id)) {
+            insert(word);
+        }
+    }
+
+    private void insert(String word) {
+        Node node = root.get();
+        if (node == null) {
+            if (root.compareAndSet(null, new Node(word))) {
+                return;
+            }
+            node = root.get();
+        }
+        // Lock-free: putIfAbsent either files the word here or hands back the child to descend into
+        while (true) {
+            int d = distance(word, node.word, Integer.MAX_VALUE);
+            if (d == 0) {
+                return;
+            }
+            Node child = node.children.putIfAbsent(d, new Node(word));
+            if (child == null) {
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // Vocabulary words within maxEdits of term
+    private List<String> within(String term, int maxEdits) {
+        List<String> found = new ArrayList<>();
+        Node start = root.get();
+        if (start == null) {
+            return found;
+        }
+        // Rows sized to the term, reused for every word in the walk
+        int[] previous = new int[term.length() + 1];
+        int[] current = new int[term.length() + 1];
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int d = distance(node.word, term, Integer.MAX_VALUE, previous, current);
+            if (d <= maxEdits) {
+                found.add(node.word);
+            }
+            for (int edge = Math.max(1, d - maxEdits); edge <= d + maxEdits; edge++) {
+                Node child = node.children.get(edge);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Levenshtein distance between {@code a} and {@code b}, or {@code limit + 1} as soon as it
+     * is known to exceed {@code limit}.
+     */
+    static int distance(String a, String b, int limit) {
+        return distance(a, b, limit, new int[b.length() + 1], new int[b.length() + 1]);
+    }
+
+    // Same, with caller-owned rows of at least b.length() + 1 entries
+    private static int distance(String a, String b, int limit, int[] previous, int[] current) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int d = previous[b.length()];
+        return d > limit ? limit + 1 : d;
+    }
+
+    // Distinct lowercase words, in title order
+    private static String[] words(String title) {
+        if (title == null) {
+            return new String[0];
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : NON_WORD.split(title.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words.toArray(String[]::new);
+    }
+}
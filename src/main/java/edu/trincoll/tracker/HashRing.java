@@ -0,0 +1,97 @@
+package edu.trincoll.tracker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent-hash ring mapping movie ids and titles to the node that owns them.
+ * <p>
+ * Each node is placed at {@code virtualNodes} points derived from its name; a key belongs to
+ * the first point at or after its hash, wrapping around. Adding or removing a node therefore
+ * only moves the keys between its points and their predecessors, about 1/n of them. The
+ * points are kept as a sorted array, so a lookup is one binary search and allocates nothing.
+ */
+final class HashRing {
+
+    private final long[] points;
+    // Node index owning each point, parallel to points
+    private final int[] owners;
+    private final int nodes;
+
+    /** @param nodes stable node names, e.g. base URLs; a node's index is its position here */
+    HashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one node and one point per node");
+        }
+        this.nodes = nodes.size();
+        int size = nodes.size() * virtualNodes;
+        long[] hashes = new long[size];
+        int[] nodeOf = new int[size];
+        Integer[] order = new Integer[size];
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int i = n * virtualNodes + v;
+                hashes[i] = hash(nodes.get(n) + "#" + v);
+                nodeOf[i] = n;
+                order[i] = i;
+            }
+        }
+        // Sort points by hash; equal hashes (vanishingly rare) fall back to node order
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b] ? Long.compareUnsigned(hashes[a], hashes[b])
+                : Integer.compare(nodeOf[a], nodeOf[b]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = nodeOf[order[i]];
+        }
+    }
+
+    int size() {
+        return nodes;
+    }
+
+    int ownerOf(long id) {
+        return ownerOfHash(mix(id));
+    }
+
+    int ownerOf(String title) {
+        return ownerOfHash(hash(title));
+    }
+
+    private int ownerOfHash(long hash) {
+        // First point at or after hash, in unsigned order, wrapping to the start
+        int lo = 0;
+        int hi = points.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(points[mid], hash) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return owners[lo == points.length ? 0 : lo];
+    }
+
+    // Murmur3's 64-bit finalizer: consecutive ids land far apart on the ring
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, mixed so similar strings spread out
+    static long hash(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+}
@@ -0,0 +1,61 @@
+package edu.trincoll.tracker;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Id-ordered postings list; tracks its own size since {@code size()} is O(n) on skip lists.
+ * Only mutate it inside the owning map's {@code compute}, as {@link #add(Map, Object, long)}
+ * and {@link #remove(Map, Object, long)} do, so the count stays exact.
+ */
+final class IdSet {
+
+    final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+    volatile int size;
+
+    void add(long id) {
+        if (ids.add(id)) {
+            size++;
+        }
+    }
+
+    void remove(long id) {
+        if (ids.remove(id)) {
+            size--;
+        }
+    }
+
+    /**
+     * Adds {@code id} to the list under {@code key}, creating the list if there is none. A null
+     * key is not indexed. Returns whether the list was created.
+     */
+    static <K> boolean add(Map<K, IdSet> index, K key, long id) {
+        if (key == null) {
+            return false;
+        }
+        boolean[] created = {false};
+        // compute keeps the add atomic with a concurrent remove dropping an empty list
+        index.compute(key, (k, list) -> {
+            IdSet ids = list;
+            if (ids == null) {
+                ids = new IdSet();
+                created[0] = true;
+            }
+            ids.add(id);
+            return ids;
+        });
+        return created[0];
+    }
+
+    /** Removes {@code id} from the list under {@code key}, dropping the list once it is empty. */
+    static <K> void remove(Map<K, IdSet> index, K key, long id) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.size == 0 ? null : ids;
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package edu.trincoll.tracker;
+
+import java.util.List;
+
+/**
+ * Result of a batch import: totals plus one entry per submitted movie, in submission order.
+ */
+public record ImportReport(int created, int rejected, List<Item> items) {
+
+    public enum Status { CREATED, INVALID, DUPLICATE }
+
+    /**
+     * Outcome for the movie at {@code index} in the request body.
+     * {@code id} is set only when created; {@code message} only when rejected.
+     */
+    public record Item(int index, Status status, Long id, String message) {
+    }
+
+    static ImportReport of(List<Item> items) {
+        int created = 0;
+        for (Item item : items) {
+            if (item.status() == Status.CREATED) {
+                created++;
+            }
+        }
+        return new ImportReport(created, items.size() - created, items);
+    }
+}
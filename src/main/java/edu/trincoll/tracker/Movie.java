@@ -45,8 +45,12 @@ public class Movie {
 
     private LocalDateTime createdAt;
 
+    // Starts at 1 on create and goes up by one with every update; assigned by the server
+    private long version;
+
     public Movie() {
-        this.createdAt = LocalDateTime.now();
+        // No createdAt here: most Movies are request bodies or store reads that never keep one,
+        // so the server stamps it when a movie is created
         this.watched = false;
     }
     
@@ -75,6 +79,9 @@ public class Movie {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     
     // TODO: Consider overriding equals() and hashCode() based on your domain
     // This is important for testing and collections
@@ -107,6 +114,7 @@ public class Movie {
                 ", rating=" + rating +
                 ", watched=" + watched +
                 ", createdAt=" + createdAt +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
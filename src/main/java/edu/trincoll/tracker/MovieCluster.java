@@ -0,0 +1,364 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * This node's view of a sharded catalog: which node owns an id or a title, and HTTP calls to
+ * the other nodes.
+ * <p>
+ * Movies live on the node their id hashes to ({@link HashRing}), and a node only hands out ids
+ * that hash to itself, so ids are unique without coordination and a create never leaves the
+ * node that received it. Titles are registered with the node their title hashes to, which keeps
+ * them unique across the cluster. Membership is static: every node is configured with the same
+ * node list, and changing it needs a restart of all nodes (existing movies are not rebalanced).
+ * <p>
+ * Calls between nodes carry {@link #LOCAL_HEADER}; a node answers those from its own shard only,
+ * so a request is never routed twice. The header holds an HMAC of the method, path and query and
+ * the time of the call, keyed with {@code movies.cluster.secret}, so clients can't pass for a node;
+ * {@link ClusterRoutingFilter} turns away requests whose header doesn't check out. Bodies aren't
+ * signed, so run the nodes' traffic over a network clients can't tamper with. A node that can't
+ * be reached within the timeout turns the request into a 503 rather than a partial answer.
+ */
+@Component
+public class MovieCluster {
+
+    static final String LOCAL_HEADER = "X-Movies-Local";
+    // Signatures older or newer than this, by this node's clock, are refused
+    static final Duration MAX_SKEW = Duration.ofMinutes(1);
+    // What nodes ask each other for when they merge answers: smaller and cheaper to parse than JSON
+    static final WireFormat PEER_FORMAT = WireFormat.SMILE;
+
+    // Request headers worth passing on; HttpClient manages the connection-level ones itself
+    private static final List<String> FORWARDED_HEADERS = List.of(
+            "Accept", "Content-Type", "If-Match", "If-None-Match");
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String PEER_ATTRIBUTE = MovieCluster.class.getName() + ".peer";
+
+    /** A response from another node. */
+    record Reply(int status, HttpHeaders headers, byte[] body) {
+    }
+
+    /**
+     * Another node didn't answer, or answered with a status the caller can't take as an answer;
+     * surfaces as 503 Service Unavailable.
+     */
+    static final class UnavailableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnavailableException(URI node, Throwable cause) {
+            super("Node " + node + " is unavailable", cause);
+        }
+    }
+
+    private final boolean enabled;
+    private final int self;
+    private final List<URI> nodes;
+    private final HashRing ring;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final SecretKeySpec key;
+
+    public MovieCluster(MovieTrackerProperties properties) {
+        MovieTrackerProperties.Cluster cluster = properties.getCluster();
+        this.enabled = cluster.isEnabled();
+        this.self = cluster.getSelf();
+        this.nodes = List.copyOf(cluster.getNodes());
+        this.timeout = cluster.getTimeout();
+        if (!enabled) {
+            this.ring = null;
+            this.client = null;
+            this.key = null;
+            return;
+        }
+        if (self < 0 || self >= nodes.size()) {
+            throw new IllegalStateException("movies.cluster.self must index movies.cluster.nodes, got " + self);
+        }
+        if (cluster.getSecret() == null || cluster.getSecret().isBlank()) {
+            throw new IllegalStateException("movies.cluster.secret must be set when clustering is enabled");
+        }
+        this.key = new SecretKeySpec(cluster.getSecret().getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        this.ring = new HashRing(nodes.stream().map(URI::toString).toList(), cluster.getVirtualNodes());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    int self() {
+        return self;
+    }
+
+    int size() {
+        return enabled ? nodes.size() : 1;
+    }
+
+    int ownerOf(long id) {
+        return enabled ? ring.ownerOf(id) : self;
+    }
+
+    int ownerOf(String title) {
+        return enabled ? ring.ownerOf(title) : self;
+    }
+
+    boolean owns(long id) {
+        return ownerOf(id) == self;
+    }
+
+    /** True if the current request came from another node and must be answered locally. */
+    boolean isLocalRequest(HttpServletRequest request) {
+        return !enabled || isPeer(request);
+    }
+
+    /**
+     * True if {@code request} came from another node of this cluster, as its signed
+     * {@link #LOCAL_HEADER} proves; never with clustering off.
+     */
+    boolean isPeer(HttpServletRequest request) {
+        if (!enabled) {
+            return false;
+        }
+        // Checked once per request, however many components ask
+        if (request.getAttribute(PEER_ATTRIBUTE) instanceof Boolean peer) {
+            return peer;
+        }
+        boolean peer = verify(request);
+        request.setAttribute(PEER_ATTRIBUTE, peer);
+        return peer;
+    }
+
+    /**
+     * The {@link #LOCAL_HEADER} value for a call to another node.
+     *
+     * @param pathAndQuery as the receiving node will see it, e.g. {@code /api/movies/7?x=1}, encoded
+     */
+    String signature(String method, String pathAndQuery) {
+        long now = System.currentTimeMillis() / 1000;
+        return now + "." + mac(now, method, pathAndQuery);
+    }
+
+    private boolean verify(HttpServletRequest request) {
+        String header = request.getHeader(LOCAL_HEADER);
+        int dot = header == null ? -1 : header.indexOf('.');
+        if (dot < 1) {
+            return false;
+        }
+        long signedAt;
+        try {
+            signedAt = Long.parseLong(header, 0, dot, 10);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() / 1000 - signedAt) > MAX_SKEW.toSeconds()) {
+            return false;
+        }
+        String pathAndQuery = request.getRequestURI()
+                + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+        // Constant time, so timing doesn't give away how much of a forged signature was right
+        return MessageDigest.isEqual(mac(signedAt, request.getMethod(), pathAndQuery).getBytes(StandardCharsets.US_ASCII),
+                header.substring(dot + 1).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String mac(long signedAt, String method, String pathAndQuery) {
+        try {
+            // Mac instances aren't thread-safe, and are cheap next to the call they sign
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal((signedAt + " " + method + " " + pathAndQuery).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is unavailable", e);
+        }
+    }
+
+    /**
+     * Sends a request to {@code node} and waits for its answer, which must be a 2xx: any other
+     * status throws {@link UnavailableException} rather than passing an error body off as data.
+     *
+     * @param pathAndQuery e.g. {@code /api/movies/7?x=1}, already encoded
+     */
+    Reply call(int node, String method, String pathAndQuery, Map<String, String> headers, byte[] body) {
+        return await(send(node, request(node, method, pathAndQuery, headers, body), false));
+    }
+
+    /**
+     * Like {@link #call}, for a client's request handed on to the node that owns it: a 3xx or
+     * 4xx is that node's answer to the client and is returned too. Only a 403, which means the node
+     * refused this node's signature, and 5xx throw.
+     */
+    Reply relay(int node, String method, String pathAndQuery, Map<String, String> headers, byte[] body) {
+        return await(send(node, request(node, method, pathAndQuery, headers, body), true));
+    }
+
+    /**
+     * True if the current request came from a client and asks about the whole catalog, so
+     * the answer has to cover every node; false with clustering off or outside a request.
+     */
+    boolean gathers() {
+        return enabled && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && !isPeer(attributes.getRequest());
+    }
+
+    /**
+     * Repeats the current GET request on every other node, in parallel, asking for
+     * {@link #PEER_FORMAT}; the future completes with their answers in node order. Use
+     * {@link #await} to wait for it.
+     */
+    CompletableFuture<List<Reply>> scatter() {
+        List<CompletableFuture<Reply>> replies = new ArrayList<>(nodes.size() - 1);
+        forEachPeer(PEER_FORMAT.mediaType().toString(), (node, request) -> replies.add(send(node, request, false)));
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new))
+                .thenApply(done -> replies.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Like {@link #scatter}, for answers too large to hold: completes, in node order, with each
+     * node's 200 body as a stream the caller must close, once every node has started answering.
+     * Any other status counts as the node being unavailable.
+     */
+    CompletableFuture<List<InputStream>> scatterStreams(String accept) {
+        List<CompletableFuture<InputStream>> streams = new ArrayList<>(nodes.size() - 1);
+        forEachPeer(accept, (node, request) -> streams.add(
+                exchange(node, request, HttpResponse.BodyHandlers.ofInputStream()).thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        closeQuietly(response.body());
+                        throw new UnavailableException(nodes.get(node),
+                                new IOException("HTTP " + response.statusCode()));
+                    }
+                    return response.body();
+                })));
+        return CompletableFuture.allOf(streams.toArray(CompletableFuture[]::new))
+                .handle((done, failure) -> {
+                    if (failure != null) {
+                        // Every call has finished by now; release the nodes that did answer
+                        streams.stream().filter(stream -> stream.state() == Future.State.SUCCESS)
+                                .forEach(stream -> closeQuietly(stream.resultNow()));
+                        throw failure instanceof CompletionException completion
+                                ? completion : new CompletionException(failure);
+                    }
+                    return streams.stream().map(CompletableFuture::join).toList();
+                });
+    }
+
+    // Builds the current GET request, as it should reach each other node, asking for accept
+    private void forEachPeer(String accept, BiConsumer<Integer, HttpRequest> call) {
+        HttpServletRequest current = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+                .getRequest();
+        String pathAndQuery = current.getRequestURI()
+                + (current.getQueryString() == null ? "" : "?" + current.getQueryString());
+        Map<String, String> headers = forwardedHeaders(current);
+        headers.put("Accept", accept);
+        for (int node = 0; node < nodes.size(); node++) {
+            if (node != self) {
+                call.accept(node, request(node, "GET", pathAndQuery, headers, null));
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // Only releasing the connection
+        }
+    }
+
+    /** The headers of {@code request} that another node needs to answer it the same way. */
+    static Map<String, String> forwardedHeaders(HttpServletRequest request) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : FORWARDED_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    private HttpRequest request(int node, String method, String pathAndQuery, Map<String, String> headers,
+                                byte[] body) {
+        URI uri = nodes.get(node).resolve(pathAndQuery);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header(LOCAL_HEADER, signature(method,
+                        uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery())))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(request::header);
+        return request.build();
+    }
+
+    /** Waits for {@code future}, rethrowing an unavailable node as {@link UnavailableException}. */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Reply> send(int node, HttpRequest request, boolean relay) {
+        return exchange(node, request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    int status = response.statusCode();
+                    boolean answer = status / 100 == 2
+                            || relay && status < 500 && status != HttpURLConnection.HTTP_FORBIDDEN;
+                    if (!answer) {
+                        throw new UnavailableException(nodes.get(node),
+                                new IOException("HTTP " + response.statusCode()));
+                    }
+                    return new Reply(response.statusCode(), response.headers(), response.body());
+                });
+    }
+
+    // Fails with UnavailableException if the node can't be reached
+    private <T> CompletableFuture<HttpResponse<T>> exchange(int node, HttpRequest request,
+                                                          HttpResponse.BodyHandler<T> body) {
+        return client.sendAsync(request, body)
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        throw new UnavailableException(nodes.get(node),
+                                cause instanceof IOException ? cause : new IOException(cause));
+                    }
+                    return response;
+                });
+    }
+}
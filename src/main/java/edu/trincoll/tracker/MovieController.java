@@ -2,12 +2,34 @@ package edu.trincoll.tracker;
 
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * AI Collaboration Report:
@@ -18,109 +40,710 @@ import java.util.stream.Collectors;
  * - Team Members: Varvara Esina, Taha Moula, Daniel Simon
  */
 @RestController
-@RequestMapping(value = "/api/movies", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/api/movies", produces = {MediaType.APPLICATION_JSON_VALUE,
+        MovieController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
 public class MovieController {
 
-    // In-memory store (placeholder for a real database)
-    private static final Map<Long, Movie> STORE = new ConcurrentHashMap<>();
-    private static final AtomicLong ID_SEQ = new AtomicLong(1);
+    static final int MAX_PAGE_SIZE = 1000;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    // Batch imports take ids from idSeq in blocks that double up to this size
+    private static final int MAX_ID_BLOCK = 4096;
+    // Writers to the same id share a lock; a power of two so the id can be masked
+    private static final int WRITE_LOCK_STRIPES = 256;
+
+    // In-memory store (placeholder for a real database), kept in id order for paging
+    private final MovieRepository store;
+    private final AtomicLong idSeq = new AtomicLong(1);
+    // Title -> id of the movie holding it, across the cluster; reserving is atomic
+    private final TitleRegistry titles;
+    // Which node owns an id, and calls to the other nodes
+    private final MovieCluster cluster;
+    // Trigram postings backing /search
+    private final TrigramIndex titleSearch = new TrigramIndex();
+    // Title words in a BK-tree, for search?fuzzy=true
+    private final FuzzyTitleIndex fuzzyTitles = new FuzzyTitleIndex();
+    // Director/year/rating/watched postings backing the list filters
+    private final SecondaryIndexes fieldIndexes = new SecondaryIndexes();
+    // Running aggregates backing /stats
+    private final MovieStatsIndex stats = new MovieStatsIndex();
+    // Serialized bodies for GET /{id} and the catalog version behind ETags
+    private final ResponseCache responses;
+    // Numbered create/update/delete events backing /changes
+    private final ChangeFeed changes;
+    // Everything told about each write, in this order
+    private final List<MovieIndex> indexes;
+    // Locks rather than monitors: a write may call another node, and a virtual thread blocked
+    // inside synchronized would hold on to its carrier thread meanwhile
+    private final Lock[] writeLocks = new Lock[WRITE_LOCK_STRIPES];
+
+    // Writer reused for every export row; flushing per row would defeat buffering
+    private final ObjectWriter rowWriter;
+    // Same settings as the HTTP converters, so cached bytes match what Spring would write
+    private final Map<WireFormat, ObjectWriter> movieWriters = new EnumMap<>(WireFormat.class);
+    // Read an array or a stream of concatenated/NDJSON movies, in each format
+    private final Map<WireFormat, ObjectReader> rowReaders = new EnumMap<>(WireFormat.class);
+    // Same, for batch patches
+    private final Map<WireFormat, ObjectReader> nodeReaders = new EnumMap<>(WireFormat.class);
+    // Answers of other nodes, which are asked for Smile, merged into cluster-wide ones
+    private final ObjectReader listReader;
+    private final ObjectReader statsReader;
+    private final Validator validator;
+    private final MovieJournal journal;
+    private final MovieMetrics metrics;
+
+    public MovieController(ObjectMapper objectMapper, Validator validator, MovieJournal journal,
+                           MovieRepository store, MovieTrackerProperties properties,
+                           MovieMetrics metrics, TitleRegistry titles, MovieCluster cluster) throws IOException {
+        this.rowWriter = objectMapper.writerFor(Movie.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        for (WireFormat format : WireFormat.values()) {
+            ObjectMapper mapper = format.mapper(objectMapper);
+            movieWriters.put(format, mapper.writerFor(Movie.class));
+            rowReaders.put(format, mapper.readerFor(Movie.class));
+            nodeReaders.put(format, mapper.readerFor(JsonNode.class));
+        }
+        ObjectMapper peerMapper = MovieCluster.PEER_FORMAT.mapper(objectMapper);
+        this.listReader = peerMapper.readerForListOf(Movie.class);
+        this.statsReader = peerMapper.readerFor(MovieStats.class);
+        this.validator = validator;
+        this.journal = journal;
+        this.metrics = metrics;
+        this.titles = titles;
+        this.cluster = cluster;
+        this.store = store;
+        this.responses = new ResponseCache(properties.getCache().getMaxEntries(), store::get);
+        this.changes = new ChangeFeed(properties.getChanges().getCapacity(),
+                properties.getChanges().getHeartbeat().toMillis());
+        this.indexes = List.of(fieldIndexes, stats, fuzzyTitles, responses, changes);
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+
+        // Rebuild the catalog from disk before serving, then resume logging
+        MovieJournal.Recovered recovered = journal.recover();
+        for (Movie movie : recovered.movies()) {
+            index(movie, false);
+        }
+        titles.recover(recovered.movies());
+        idSeq.accumulateAndGet(recovered.nextId(), Math::max);
+        journal.start(store::values, idSeq::get);
+    }
 
     /**
      * GET /api/movies
-     * Returns all movies
+     * GET /api/movies?limit=50&after=120
+     * GET /api/movies?director=Nolan&yearFrom=2000&yearTo=2009&minRating=8&watched=false
+     * Returns all movies in id order, or one page of them when limit is given
+     * - after is the last id of the previous page (exclusive)
+     * - X-Next-Cursor carries the id to pass as after, absent on the last page
+     * - director, yearFrom/yearTo (inclusive), minRating and watched narrow the result, combined with AND
+     * - Filters are served from secondary indexes, so cost follows the most selective filter
+     * - sort=rating|-rating|createdAt|-createdAt returns the first limit movies in that order
+     *   (unrated last); read off an ordered index, or a bounded heap over the filter's matches
+     * - ETag follows the catalog version; If-None-Match with the current tag returns 304 without a read
+     * - 400 if limit is outside 1..MAX_PAGE_SIZE, sort is unknown, or sort is combined with after
+     * - In a cluster the pages of all nodes are merged, untagged; 503 if a node doesn't answer
      */
     @GetMapping
-    public ResponseEntity<List<Movie>> getAll() {
-        List<Movie> movies = STORE.values()
-                .stream()
-                .sorted(Comparator.comparing(Movie::getId))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(movies);
+    public ResponseEntity<List<Movie>> getAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) String sort,
+                                              @ModelAttribute MovieFilter filter,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch) {
+        // Before the ETag check, so a bad request gets its 400 even with a matching If-None-Match
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)
+                || sort != null && (MovieSort.parse(sort) == null || after != null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (cluster.gathers()) {
+            return gatherList(limit, after, sort, filter);
+        }
+        // Any write bumps the version, so an unchanged version means an unchanged response
+        long version = responses.version();
+        String etag = responses.listTag(version);
+        if (ResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        long start = System.nanoTime();
+        ResponseEntity<List<Movie>> response = list(limit, after, sort, filter);
+        metrics.listScanned(System.nanoTime() - start);
+        if (response.getStatusCode().is2xxSuccessful() && responses.version() == version) {
+            // Only tag a response no write overlapped
+            return ResponseEntity.ok().headers(response.getHeaders()).eTag(etag).body(response.getBody());
+        }
+        return response;
+    }
+
+    private ResponseEntity<List<Movie>> list(Integer limit, Long after, String sort, MovieFilter filter) {
+        if (sort != null) {
+            return topK(sort, limit, filter);
+        }
+        boolean paged = limit != null || after != null;
+        if (!paged && filter.isEmpty()) {
+            // The store iterates in id order, so no per-request sort
+            List<Movie> all = new ArrayList<>(store.size());
+            store.values().forEach(all::add);
+            return ResponseEntity.ok(all);
+        }
+        int max = !paged ? Integer.MAX_VALUE : limit == null ? MAX_PAGE_SIZE : limit;
+
+        long from = after == null ? Long.MIN_VALUE : after;
+        Iterator<Movie> it = filter.isEmpty() ? store.after(from).iterator() : filtered(filter, from);
+        List<Movie> page = new ArrayList<>(Math.min(max, 64));
+        while (it.hasNext() && page.size() < max) {
+            page.add(it.next());
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (it.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    // This node's page merged with every other node's; the catalog version is per node, so no ETag
+    private ResponseEntity<List<Movie>> gatherList(Integer limit, Long after, String sort, MovieFilter filter) {
+        CompletableFuture<List<MovieCluster.Reply>> peers = cluster.scatter();
+        ResponseEntity<List<Movie>> local = list(limit, after, sort, filter);
+        List<MovieCluster.Reply> replies = MovieCluster.await(peers);
+        if (!local.getStatusCode().is2xxSuccessful()) {
+            return local;
+        }
+
+        List<Movie> merged = new ArrayList<>(local.getBody());
+        boolean more = local.getHeaders().containsKey(NEXT_CURSOR_HEADER);
+        for (MovieCluster.Reply reply : replies) {
+            merged.addAll(readList(reply));
+            more |= reply.headers().firstValue(NEXT_CURSOR_HEADER).isPresent();
+        }
+        MovieSort order = sort == null ? null : MovieSort.parse(sort);
+        merged.sort(order == null ? Comparator.comparing(Movie::getId) : order.comparator());
+
+        // Each node returned its own first page; the merged page is the first max of their union
+        int max = sort == null && limit == null && after == null ? Integer.MAX_VALUE
+                : limit == null ? MAX_PAGE_SIZE : limit;
+        if (merged.size() > max) {
+            merged = new ArrayList<>(merged.subList(0, max));
+            more = true;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (more && sort == null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(merged.get(merged.size() - 1).getId()));
+        }
+        return response.body(merged);
+    }
+
+    private List<Movie> readList(MovieCluster.Reply reply) {
+        try {
+            return listReader.readValue(reply.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // First limit movies in the given order; no cursor, since a page boundary isn't an id
+    private ResponseEntity<List<Movie>> topK(String sortParam, Integer limit, MovieFilter filter) {
+        MovieSort sort = MovieSort.parse(sortParam);
+        int k = limit == null ? MAX_PAGE_SIZE : limit;
+        Comparator<Movie> order = sort.comparator();
+
+        if (filter.isEmpty()) {
+            // The index is already in order: take the first k live movies, O(k log n)
+            List<Movie> top = new ArrayList<>(Math.min(k, 64));
+            Set<Long> seen = new HashSet<>();
+            Iterator<Long> ids = fieldIndexes.ordered(sort);
+            while (ids.hasNext() && top.size() < k) {
+                Long id = ids.next();
+                Movie movie = store.get(id);
+                // A concurrent update can list a movie at both its old and new position
+                if (movie != null && seen.add(id)) {
+                    top.add(movie);
+                }
+            }
+            return ResponseEntity.ok(top);
+        }
+
+        // Filtered: keep the best k matches in a heap whose head is the worst of them, O(m log k)
+        PriorityQueue<Movie> heap = new PriorityQueue<>(k + 1, order.reversed());
+        Iterator<Movie> matches = filtered(filter, Long.MIN_VALUE);
+        while (matches.hasNext()) {
+            Movie movie = matches.next();
+            if (heap.size() < k) {
+                heap.add(movie);
+            } else if (order.compare(movie, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(movie);
+            }
+        }
+        List<Movie> top = new ArrayList<>(heap);
+        top.sort(order);
+        return ResponseEntity.ok(top);
+    }
+
+    /**
+     * GET /api/movies/export
+     * Streams the whole catalog as newline-delimited JSON, one movie per line
+     * - Rows are written straight to the response, so memory stays flat for any catalog size
+     * - In a cluster this node's rows are followed by every other node's, copied through as they
+     *   arrive; 503 if a node doesn't start answering
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        // Opened before the response starts, so a node that's down can still turn it into a 503
+        List<InputStream> peers = cluster.gathers()
+                ? MovieCluster.await(cluster.scatterStreams(APPLICATION_NDJSON_VALUE)) : List.of();
+        StreamingResponseBody body = out -> {
+            try {
+                try (JsonGenerator gen = rowWriter.getFactory().createGenerator(out)) {
+                    gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    gen.setRootValueSeparator(null);
+                    for (Movie movie : store.values()) {
+                        rowWriter.writeValue(gen, movie);
+                        gen.writeRaw('\n');
+                    }
+                }
+                for (InputStream peer : peers) {
+                    peer.transferTo(out);
+                }
+            } finally {
+                for (InputStream peer : peers) {
+                    peer.close();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     /**
      * GET /api/movies/{id}
      * Returns a movie by ID (404 if not found)
+     * - The serialized body is cached until the movie changes, with a strong ETag
+     * - If-None-Match with that ETag returns 304 without serializing anything
+     * - Accept: application/x-jackson-smile or application/cbor answers in that binary format, under
+     *   the JSON ETag with a "-smile" or "-cbor" suffix, since the bytes differ; If-Match takes any of them
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Movie> getById(@PathVariable Long id) {
-        Movie movie = STORE.get(id);
+    public ResponseEntity<byte[]> getById(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                          String ifNoneMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                          String accept) throws JsonProcessingException {
+        WireFormat format = WireFormat.accepted(accept);
+        if (format != WireFormat.JSON) {
+            return getBinary(id, ifNoneMatch, format);
+        }
+        ResponseCache.Entry cached = responses.get(id);
+        if (cached == null) {
+            Movie movie = store.get(id);
+            if (movie == null) {
+                metrics.notFound();
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            // Dropped again if a write to this movie overtook the load
+            cached = responses.put(movie, serialize(movie));
+        }
+        if (ResponseCache.matches(ifNoneMatch, cached.etag())) {
+            return cached.notModified();
+        }
+        // Built once per cached body, so a hit allocates nothing
+        return cached.response();
+    }
+
+    // Only JSON bodies are cached; binary ones are written per request, tagged from the JSON body's ETag
+    private ResponseEntity<byte[]> getBinary(long id, String ifNoneMatch, WireFormat format)
+            throws JsonProcessingException {
+        Movie movie = store.get(id);
         if (movie == null) {
+            metrics.notFound();
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        return ResponseEntity.ok(movie);
+        ResponseCache.Entry cached = responses.get(id);
+        // A cached entry of the loaded version is this movie's; otherwise tag what was loaded
+        if (cached == null || cached.version() != movie.getVersion()) {
+            cached = responses.put(movie, serialize(movie));
+        }
+        String etag = format.etag(cached.etag());
+        if (ResponseCache.matches(ifNoneMatch, etag)) {
+            return new ResponseEntity<>(ResponseCache.headers(etag, null), HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(serialize(movie, format),
+                ResponseCache.headers(etag, format.mediaType().toString()), HttpStatus.OK);
     }
 
     /**
      * POST /api/movies
      * Creates a new movie
-     * - Validate required fields (title)
-     * - Reject duplicates by title (409 Conflict)
+     * - Validate against the Movie constraints (title required, year and rating in range), otherwise 400
+     * - Reject duplicates by title (409 Conflict); the id tried is handed back, so the next create
+     *   gets it unless a concurrent create already took a later one
      * - Ignore client-provided id/createdAt
+     * - The body may be JSON, Smile or CBOR, and so may the response (by Accept), as everywhere below
      */
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Movie> create(@RequestBody Movie body) {
-        // Validate title
-        if (body.getTitle() == null || body.getTitle().isBlank()) {
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Movie> create(@RequestBody Movie movie) {
+        // The same checks batch import and PATCH apply; the stores keep ratings in a byte
+        if (validate(movie) != null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
         // Enforce uniqueness by title (case-sensitive to match starter style; change to equalsIgnoreCase if desired)
-        boolean duplicate = STORE.values().stream()
-                .anyMatch(existing -> Objects.equals(existing.getTitle(), body.getTitle()));
-        if (duplicate) {
+        // Reserving the title first means two concurrent POSTs cannot both win
+        long id = nextId();
+        if (titles.reserve(movie.getTitle(), id) != null) {
+            // Only while it is still the latest id taken; later ids are already handed out
+            idSeq.compareAndSet(id + 1, id);
+            metrics.duplicateRejected();
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
 
-        // Assign new ID and build the server object
-        long id = ID_SEQ.getAndIncrement();
-        Movie toSave = new Movie();
-        toSave.setId(id);
-        toSave.setTitle(body.getTitle());
-        toSave.setDirector(body.getDirector());
-        toSave.setYear(body.getYear());
-        toSave.setRating(body.getRating());
-        toSave.setWatched(body.isWatched());
-        // Keep Movie()'s server-side createdAt
+        // The parsed body is private to this request, so it becomes the stored movie; the
+        // server's fields overwrite whatever the client sent
+        movie.setId(id);
+        movie.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        movie.setVersion(1);
+
+        insert(movie).join();
+        // HttpHeaders.EMPTY is shared; a builder would allocate a header map per response
+        return new ResponseEntity<>(movie, HttpHeaders.EMPTY, HttpStatus.CREATED);
+    }
+
+    /**
+     * POST /api/movies/batch
+     * Creates many movies from a JSON array or an NDJSON stream in one request (or a Smile/CBOR array or sequence)
+     * - Each movie is checked against the Movie constraints and rejected on its own
+     * - Titles already stored or repeated earlier in the batch are rejected as duplicates
+     * - Ids come from the id sequence in blocks, so a batch may leave small gaps in the sequence
+     * - Returns a per-item report; 400 (with the report so far) if the body stops parsing
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<ImportReport> importBatch(InputStream body,
+                                                    @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false)
+                                                    String contentType) throws IOException {
+        List<ImportReport.Item> items = new ArrayList<>();
+        // Entries become durable in order, so waiting on the last one covers the batch
+        CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+        long nextId = 0;
+        long blockEnd = 0;
+        int blockSize = 16;
+
+        try (MappingIterator<Movie> movies = rowReaders.get(WireFormat.ofContentType(contentType)).readValues(body)) {
+            while (movies.hasNextValue()) {
+                Movie movie = movies.nextValue();
+                int index = items.size();
+
+                String problem = validate(movie);
+                if (problem != null) {
+                    items.add(new ImportReport.Item(index, ImportReport.Status.INVALID, null, problem));
+                    continue;
+                }
+
+                // In a cluster, skip the ids of the block that hash to other nodes
+                while (true) {
+                    if (nextId == blockEnd) {
+                        nextId = idSeq.getAndAdd(blockSize);
+                        blockEnd = nextId + blockSize;
+                        blockSize = Math.min(blockSize * 2, MAX_ID_BLOCK);
+                    }
+                    if (cluster.owns(nextId)) {
+                        break;
+                    }
+                    nextId++;
+                }
+                // One lookup catches both earlier rows of this batch and the existing catalog
+                if (titles.reserve(movie.getTitle(), nextId) != null) {
+                    metrics.duplicateRejected();
+                    items.add(new ImportReport.Item(index, ImportReport.Status.DUPLICATE, null,
+                            "Title already exists"));
+                    continue;
+                }
 
-        STORE.put(id, toSave);
-        return ResponseEntity.status(HttpStatus.CREATED).body(toSave);
+                // The parsed object is private to this request, so store it directly
+                movie.setId(nextId);
+                movie.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+                movie.setVersion(1);
+                durable = insert(movie);
+                items.add(new ImportReport.Item(index, ImportReport.Status.CREATED, nextId++, null));
+            }
+        } catch (JsonProcessingException e) {
+            items.add(new ImportReport.Item(items.size(), ImportReport.Status.INVALID, null,
+                    "Malformed JSON: " + e.getOriginalMessage()));
+            durable.join();
+            return ResponseEntity.badRequest().body(ImportReport.of(items));
+        }
+        durable.join();
+        return ResponseEntity.ok(ImportReport.of(items));
     }
 
     /**
      * PUT /api/movies/{id}
      * Updates an existing movie
-     * - Validate required fields (title)
+     * - Validate against the Movie constraints, otherwise 400
      * - Return 404 if movie doesn't exist
      * - Reject duplicates by title (409 Conflict) if changing to an existing title
-     * - Preserve original createdAt
+     * - Preserve original createdAt; version goes up by one
+     * - If-Match must name the current ETag (or be *), otherwise 412 and nothing changes
+     * - The response carries the new ETag, ready for the next If-Match
      */
-    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Movie> update(@PathVariable Long id, @RequestBody Movie update) {
-        Movie existing = STORE.get(id);
-        if (existing == null) {
+    @PutMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<byte[]> update(@PathVariable long id, @RequestBody Movie update,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                         String ifMatch,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                         String accept) throws JsonProcessingException {
+        if (store.get(id) == null) {
+            metrics.notFound();
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        if (update.getTitle() == null || update.getTitle().isBlank()) {
+        if (validate(update) != null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        boolean duplicateTitle = STORE.values().stream()
-                .anyMatch(other -> !Objects.equals(other.getId(), id)
-                        && Objects.equals(other.getTitle(), update.getTitle()));
-        if (duplicateTitle) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        Replaced result = replace(id, ifMatch, null, existing -> update);
+        return respond(result, WireFormat.accepted(accept));
+    }
+
+    /**
+     * PATCH /api/movies/{id}
+     * Changes only the fields present in the body (JSON merge patch; null clears a field)
+     * - The title is only checked for duplicates (409) when the patch changes it
+     * - A "version" field or If-Match header must match the stored movie, otherwise 412
+     * - 400 if the body has unknown fields or the patched movie breaks a Movie constraint
+     * - Return 404 if movie doesn't exist
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_MERGE_PATCH_JSON_VALUE,
+            APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<byte[]> patch(@PathVariable long id, @RequestBody JsonNode body,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                        String ifMatch,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                        String accept) throws JsonProcessingException {
+        MoviePatch patch;
+        try {
+            patch = MoviePatch.of(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
+        return respond(replace(id, ifMatch, patch.expectedVersion(), patcher(patch)), WireFormat.accepted(accept));
+    }
 
-        existing.setTitle(update.getTitle());
-        existing.setDirector(update.getDirector());
-        existing.setYear(update.getYear());
-        existing.setRating(update.getRating());
-        existing.setWatched(update.isWatched());
-        // createdAt stays as-is
+    /**
+     * PATCH /api/movies/batch
+     * Applies many merge patches in one request, from a JSON array or an NDJSON stream (or Smile/CBOR)
+     * - Each entry names its movie with "id" and may carry a "version" precondition
+     * - Entries apply one by one, in order; a rejected entry doesn't stop the rest
+     * - In a cluster, entries for movies on other nodes are sent there one at a time (UNAVAILABLE if the node is down)
+     * - Returns a per-entry report with each new version; 400 (with the report so far) if the body stops parsing
+     */
+    @PatchMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<PatchReport> patchBatch(InputStream body,
+                                                  @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false)
+                                                  String contentType) throws IOException {
+        List<PatchReport.Item> items = new ArrayList<>();
+        // Entries become durable in order, so waiting on the last one covers the batch
+        CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
 
-        return ResponseEntity.ok(existing);
+        try (MappingIterator<JsonNode> patches = nodeReaders.get(WireFormat.ofContentType(contentType)).readValues(body)) {
+            while (patches.hasNextValue()) {
+                JsonNode node = patches.nextValue();
+                int index = items.size();
+                MoviePatch patch;
+                try {
+                    patch = MoviePatch.of(node);
+                } catch (IllegalArgumentException e) {
+                    items.add(new PatchReport.Item(index, PatchReport.Status.INVALID, null, null, e.getMessage()));
+                    continue;
+                }
+                Long id = patch.id();
+                if (id == null) {
+                    items.add(new PatchReport.Item(index, PatchReport.Status.INVALID, null, null, "id is required"));
+                    continue;
+                }
+                if (!cluster.owns(id)) {
+                    items.add(patchElsewhere(index, id, node));
+                    continue;
+                }
+
+                Replaced result = replace(id, null, patch.expectedVersion(), patcher(patch));
+                PatchReport.Status status = switch (result.status()) {
+                    case OK -> PatchReport.Status.UPDATED;
+                    case NOT_FOUND -> PatchReport.Status.NOT_FOUND;
+                    case PRECONDITION_FAILED -> PatchReport.Status.VERSION_MISMATCH;
+                    case CONFLICT -> PatchReport.Status.DUPLICATE;
+                    default -> PatchReport.Status.INVALID;
+                };
+                if (result.durable() != null) {
+                    durable = result.durable();
+                }
+                Long version = result.movie() == null ? null : result.movie().getVersion();
+                items.add(new PatchReport.Item(index, status, id, version, result.message()));
+            }
+        } catch (JsonProcessingException e) {
+            items.add(new PatchReport.Item(items.size(), PatchReport.Status.INVALID, null, null,
+                    "Malformed JSON: " + e.getOriginalMessage()));
+            durable.join();
+            return ResponseEntity.badRequest().body(PatchReport.of(items));
+        }
+        durable.join();
+        return ResponseEntity.ok(PatchReport.of(items));
+    }
+
+    // A batch entry for a movie on another node, applied there as a single merge patch
+    private PatchReport.Item patchElsewhere(int index, long id, JsonNode node) throws IOException {
+        MovieCluster.Reply reply;
+        try {
+            reply = cluster.relay(cluster.ownerOf(id), "PATCH", "/api/movies/" + id,
+                    Map.of(HttpHeaders.CONTENT_TYPE, APPLICATION_MERGE_PATCH_JSON_VALUE,
+                            HttpHeaders.ACCEPT, MovieCluster.PEER_FORMAT.mediaType().toString()),
+                    node.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (MovieCluster.UnavailableException e) {
+            return new PatchReport.Item(index, PatchReport.Status.UNAVAILABLE, id, null, e.getMessage());
+        }
+        return switch (reply.status()) {
+            case 200 -> new PatchReport.Item(index, PatchReport.Status.UPDATED, id,
+                    rowReaders.get(MovieCluster.PEER_FORMAT).<Movie>readValue(reply.body()).getVersion(), null);
+            case 404 -> new PatchReport.Item(index, PatchReport.Status.NOT_FOUND, id, null, "No movie with this id");
+            case 409 -> new PatchReport.Item(index, PatchReport.Status.DUPLICATE, id, null, "Title already exists");
+            case 412 -> new PatchReport.Item(index, PatchReport.Status.VERSION_MISMATCH, id, null,
+                    "Version does not match");
+            default -> new PatchReport.Item(index, PatchReport.Status.INVALID, id, null,
+                    "Rejected with HTTP " + reply.status());
+        };
+    }
+
+    // Applies a patch and checks the result against the Movie constraints
+    private Function<Movie, Movie> patcher(MoviePatch patch) {
+        return existing -> {
+            Movie patched = patch.applyTo(existing);
+            String problem = validate(patched);
+            if (problem != null) {
+                throw new IllegalArgumentException(problem);
+            }
+            return patched;
+        };
+    }
+
+    /**
+     * Outcome of {@link #replace}. On success {@code movie} is the stored replacement;
+     * otherwise {@code message} says why.
+     */
+    private record Replaced(HttpStatus status, Movie movie, String message,
+                            CompletableFuture<Void> durable) {
+
+        static Replaced rejected(HttpStatus status, String message) {
+            return new Replaced(status, null, message, null);
+        }
+    }
+
+    /**
+     * Swaps movie {@code id} for {@code edit(existing)}, whose title, director, year, rating and
+     * watched are taken; id and createdAt are kept and the version goes up by one.
+     * {@code edit} may throw IllegalArgumentException to reject the change (400).
+     * <p>
+     * A new title is reserved before the movie's write lock is taken, since the reservation may
+     * be a call to another node; if the movie changed meanwhile, the reservation is handed back
+     * and the edit starts over from the newer movie.
+     */
+    private Replaced replace(long id, String ifMatch, Long expectedVersion, Function<Movie, Movie> edit)
+            throws JsonProcessingException {
+        while (true) {
+            Movie seen = store.get(id);
+            if (seen == null) {
+                metrics.notFound();
+                return Replaced.rejected(HttpStatus.NOT_FOUND, "No movie with this id");
+            }
+            if (ifMatch != null && !WireFormat.matchesAnyFormat(ifMatch, cached(seen).etag())) {
+                return Replaced.rejected(HttpStatus.PRECONDITION_FAILED, "ETag does not match");
+            }
+            if (expectedVersion != null && expectedVersion != seen.getVersion()) {
+                return Replaced.rejected(HttpStatus.PRECONDITION_FAILED,
+                        "Movie is at version " + seen.getVersion());
+            }
+            Movie edited;
+            try {
+                edited = edit.apply(seen);
+            } catch (IllegalArgumentException e) {
+                return Replaced.rejected(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+
+            String oldTitle = seen.getTitle();
+            String newTitle = edited.getTitle();
+            // An unchanged title needs no uniqueness check; held already means held by this movie
+            boolean reserved = false;
+            if (!newTitle.equals(oldTitle)) {
+                Long owner = titles.reserve(newTitle, id);
+                if (owner != null && !owner.equals(id)) {
+                    metrics.duplicateRejected();
+                    return Replaced.rejected(HttpStatus.CONFLICT, "Title already exists");
+                }
+                reserved = owner == null;
+            }
+
+            // Writers to the same movie take turns so the journal sees this movie's changes in
+            // the order they were applied
+            Lock lock = lockFor(id);
+            lock.lock();
+            try {
+                Movie existing = store.get(id);
+                // Stored movies are never mutated, so the same version means the checks above still hold
+                if (existing != null && existing.getVersion() == seen.getVersion()) {
+                    Movie updated = new Movie();
+                    updated.setId(id);
+                    updated.setTitle(newTitle);
+                    updated.setDirector(edited.getDirector());
+                    updated.setYear(edited.getYear());
+                    updated.setRating(edited.getRating());
+                    updated.setWatched(edited.isWatched());
+                    updated.setCreatedAt(existing.getCreatedAt());
+                    updated.setVersion(existing.getVersion() + 1);
+                    store.put(updated);
+                    for (MovieIndex index : indexes) {
+                        index.replaced(existing, updated);
+                    }
+
+                    if (!newTitle.equals(oldTitle)) {
+                        // Under the lock, so a rename back to the old title can't overtake this release
+                        titles.release(oldTitle, id);
+                        titleSearch.remove(id, oldTitle);
+                        titleSearch.add(id, newTitle);
+                    }
+                    CompletableFuture<Void> durable = journal.append(MovieJournal.Op.UPDATE, updated);
+                    return new Replaced(HttpStatus.OK, updated, null, durable);
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Changed or deleted while the title was being reserved
+            if (reserved) {
+                titles.release(newTitle, id);
+            }
+        }
+    }
+
+    // Waits for durability, then answers with the new body and ETag, rendered outside the lock
+    private ResponseEntity<byte[]> respond(Replaced result, WireFormat format) throws JsonProcessingException {
+        if (result.status() != HttpStatus.OK) {
+            return ResponseEntity.status(result.status()).build();
+        }
+        result.durable().join();
+        // Only a later write to this movie can void the rendered bytes
+        ResponseCache.Entry response = responses.put(result.movie(), serialize(result.movie()));
+        if (format == WireFormat.JSON) {
+            return response.response();
+        }
+        return new ResponseEntity<>(serialize(result.movie(), format),
+                ResponseCache.headers(format.etag(response.etag()), format.mediaType().toString()), HttpStatus.OK);
     }
 
     /**
@@ -128,37 +751,293 @@ public class MovieController {
      * Deletes a movie
      * - Return 204 No Content on success
      * - Return 404 if not found
+     * - Return 412 if If-Match doesn't name the current ETag
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        Movie removed = STORE.remove(id);
-        if (removed == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    public ResponseEntity<Void> delete(@PathVariable long id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                       String ifMatch) throws JsonProcessingException {
+        CompletableFuture<Void> durable;
+        Lock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (ifMatch != null) {
+                Movie current = store.get(id);
+                if (current == null) {
+                    metrics.notFound();
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+                }
+                if (!WireFormat.matchesAnyFormat(ifMatch, cached(current).etag())) {
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+                }
+            }
+            Movie existing = store.remove(id);
+            if (existing == null) {
+                metrics.notFound();
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            titles.release(existing.getTitle(), id);
+            titleSearch.remove(id, existing.getTitle());
+            for (MovieIndex index : indexes) {
+                index.removed(existing);
+            }
+            durable = journal.append(MovieJournal.Op.DELETE, existing);
+        } finally {
+            lock.unlock();
         }
+        durable.join();
         return ResponseEntity.noContent().build();
     }
 
     /**
      * GET /api/movies/search?title=value
+     * GET /api/movies/search?title=alein&fuzzy=true&maxEdits=2
      * Searches movies by title (case-insensitive contains)
+     * - Served from the trigram index, results in id order
+     * - fuzzy=true instead matches each query word to a title word within maxEdits typos (default 2),
+     *   best match first (fewest edits, then fewest extra title words), at most MAX_PAGE_SIZE results
+     * - In fuzzy mode words of up to 2 letters must match exactly and up to 5 letters allow one edit
+     * - 400 if maxEdits is outside 0..2
+     * - In a cluster the matches of all nodes are merged, in the same order
      * BONUS endpoint
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Movie>> searchByTitle(@RequestParam("title") String title) {
-        if (title == null) {
+    public ResponseEntity<List<Movie>> searchByTitle(@RequestParam("title") String title,
+                                                     @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                     @RequestParam(defaultValue = "2") int maxEdits) {
+        if (title == null || maxEdits < 0 || maxEdits > FuzzyTitleIndex.MAX_EDITS) {
             return ResponseEntity.badRequest().build();
         }
-        String query = title.toLowerCase(Locale.ROOT);
-        List<Movie> results = STORE.values().stream()
-                .filter(m -> m.getTitle() != null && m.getTitle().toLowerCase(Locale.ROOT).contains(query))
-                .sorted(Comparator.comparing(Movie::getId))
-                .collect(Collectors.toList());
+        CompletableFuture<List<MovieCluster.Reply>> peers = cluster.gathers() ? cluster.scatter() : null;
+        long start = System.nanoTime();
+        List<Long> ids = fuzzy ? fuzzyTitles.search(title, maxEdits, MAX_PAGE_SIZE) : titleSearch.search(title);
+        List<Movie> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Movie movie = store.get(id);
+            if (movie != null) {
+                results.add(movie);
+            }
+        }
+        metrics.searchScanned(System.nanoTime() - start);
+        if (peers != null) {
+            for (MovieCluster.Reply reply : MovieCluster.await(peers)) {
+                results.addAll(readList(reply));
+            }
+            if (fuzzy) {
+                results = FuzzyTitleIndex.rank(title, maxEdits, results, MAX_PAGE_SIZE);
+            } else {
+                results.sort(Comparator.comparing(Movie::getId));
+            }
+        }
+        metrics.searchResults(results.size());
         return ResponseEntity.ok(results);
     }
 
+    /**
+     * GET /api/movies/changes (Accept: text/event-stream)
+     * Streams create/update/delete events as Server-Sent Events, each with its cursor (boot epoch and sequence number) as id
+     * - Starts after since, or after Last-Event-ID on reconnect, or at the latest change if neither is given
+     * - A "reset" event means the cursor fell out of the retained window or is from before a restart;
+     *   reload, then follow from its id
+     * - Each client is served on its own thread, so a slow one never holds up writers or other clients
+     * - 501 Not Implemented with clustering on: each node numbers only its own writes, so there is no
+     *   cluster-wide feed to follow
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        requireSingleNode();
+        String cursor = since != null ? since : lastEventId;
+        long after = cursor != null ? changes.seqOf(cursor) : changes.head();
+        // No timeout: the feed runs until the client disconnects
+        SseEmitter emitter = new SseEmitter(0L);
+        Thread subscriber = changes.subscribe(after, new ChangeFeed.Sink() {
+            @Override
+            public void send(ChangeFeed.Event event) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(changes.cursor(event.seq()))
+                        .name(event.type().name().toLowerCase(Locale.ROOT))
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void reset(long head) throws IOException {
+                String cursor = changes.cursor(head);
+                emitter.send(SseEmitter.event().id(cursor).name("reset").data(Map.of("head", cursor)));
+            }
+
+            @Override
+            public void heartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+        });
+        emitter.onCompletion(subscriber::interrupt);
+        emitter.onError(e -> subscriber.interrupt());
+        return emitter;
+    }
+
+    /**
+     * GET /api/movies/changes?since=18f3a2b4c5d.120
+     * Returns the changes after the since cursor without waiting, oldest first, at most MAX_PAGE_SIZE
+     * - X-Next-Cursor carries the cursor to pass as since next time
+     * - 410 Gone if some of those changes have left the retained window, or the cursor is from before a
+     *   restart; reload, then poll from X-Next-Cursor
+     * - 501 Not Implemented with clustering on, as for the stream
+     */
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ChangeFeed.Event>> changesSince(@RequestParam String since) {
+        requireSingleNode();
+        long after = changes.seqOf(since);
+        List<ChangeFeed.Event> events = changes.read(after, MAX_PAGE_SIZE);
+        if (events == null) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .header(NEXT_CURSOR_HEADER, changes.cursor(changes.head())).build();
+        }
+        long next = events.isEmpty() ? after : events.get(events.size() - 1).seq();
+        return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, changes.cursor(next)).body(events);
+    }
+
+    /**
+     * GET /api/movies/stats
+     * Returns catalog aggregates: totals, watched split, average rating, per-director and per-decade counts
+     * - Maintained on every write, so the cost doesn't grow with the catalog
+     * - In a cluster the aggregates of all nodes are added up
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<MovieStats> stats() throws IOException {
+        if (!cluster.gathers()) {
+            return ResponseEntity.ok(stats.snapshot());
+        }
+        CompletableFuture<List<MovieCluster.Reply>> peers = cluster.scatter();
+        List<MovieStats> parts = new ArrayList<>();
+        parts.add(stats.snapshot());
+        for (MovieCluster.Reply reply : MovieCluster.await(peers)) {
+            parts.add(statsReader.readValue(reply.body()));
+        }
+        return ResponseEntity.ok(MovieStats.sum(parts));
+    }
+
+    // The change feed numbers this node's writes only; following one node of a cluster would miss the rest
+    private void requireSingleNode() {
+        if (cluster.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                    "The change feed is not available with clustering on; each node only sees its own writes");
+        }
+    }
+
+    // A node that can't be reached fails the whole request rather than answering for part of the catalog
+    @ExceptionHandler(MovieCluster.UnavailableException.class)
+    public ResponseEntity<Void> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    // Serialized form of a movie the caller holds the write lock for, from the cache when possible
+    private ResponseCache.Entry cached(Movie movie) throws JsonProcessingException {
+        ResponseCache.Entry entry = responses.get(movie.getId());
+        // A fill that lost to a write removes itself just after installing; don't compare against it
+        if (entry == null || entry.version() != movie.getVersion()) {
+            entry = responses.put(movie, serialize(movie));
+        }
+        return entry;
+    }
+
+    private byte[] serialize(Movie movie) throws JsonProcessingException {
+        return serialize(movie, WireFormat.JSON);
+    }
+
+    private byte[] serialize(Movie movie, WireFormat format) throws JsonProcessingException {
+        long start = System.nanoTime();
+        byte[] body = movieWriters.get(format).writeValueAsBytes(movie);
+        metrics.movieSerialized(System.nanoTime() - start);
+        return body;
+    }
+
+    // Publishes a new movie whose title is already reserved; the future completes once it is durable
+    private CompletableFuture<Void> insert(Movie movie) {
+        // Lock before publishing so an update to the new movie can't reach the journal ahead of its create
+        Lock lock = lockFor(movie.getId());
+        lock.lock();
+        try {
+            index(movie, true);
+            return journal.append(MovieJournal.Op.CREATE, movie);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Recovered movies aren't changes, so replaying them leaves the feed out
+    private void index(Movie movie, boolean publish) {
+        store.put(movie);
+        titleSearch.add(movie.getId(), movie.getTitle());
+        for (MovieIndex index : indexes) {
+            if (publish || index != changes) {
+                index.added(movie);
+            }
+        }
+    }
+
+    // Movies matching the filter with an id past afterId, in id order
+    private Iterator<Movie> filtered(MovieFilter filter, long afterId) {
+        Iterator<Long> candidates = fieldIndexes.candidates(filter, afterId).iterator();
+        return new Iterator<>() {
+            private Movie next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && candidates.hasNext()) {
+                    // Re-check against the stored movie; an index may run ahead of the store
+                    Movie movie = store.get(candidates.next());
+                    if (movie != null && filter.test(movie)) {
+                        next = movie;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Movie next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Movie movie = next;
+                next = null;
+                return movie;
+            }
+        };
+    }
+
+    // Next id from the sequence that this node owns; with clustering off, simply the next id
+    private long nextId() {
+        long id = idSeq.getAndIncrement();
+        while (!cluster.owns(id)) {
+            id = idSeq.getAndIncrement();
+        }
+        return id;
+    }
+
+    private Lock lockFor(long id) {
+        return writeLocks[(int) (id ^ (id >>> 32)) & (WRITE_LOCK_STRIPES - 1)];
+    }
+
+    // Returns the joined constraint messages, or null if the movie is valid
+    private String validate(Movie movie) {
+        Set<ConstraintViolation<Movie>> violations = validator.validate(movie);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringJoiner messages = new StringJoiner("; ");
+        for (ConstraintViolation<Movie> violation : violations) {
+            messages.add(violation.getMessage());
+        }
+        return messages.toString();
+    }
+
     // Test helper method - only for testing purposes
-    static void clearStore() {
-        STORE.clear();
-        ID_SEQ.set(1);
+    void clearStore() {
+        store.clear();
+        titles.clear();
+        titleSearch.clear();
+        indexes.forEach(MovieIndex::clear);
+        idSeq.set(1);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package edu.trincoll.tracker;
+
+/**
+ * Field filters for {@code GET /api/movies}, combined with AND. A null field matches anything.
+ * Year bounds are inclusive.
+ */
+public record MovieFilter(String director, Integer yearFrom, Integer yearTo, Integer minRating, Boolean watched) {
+
+    static final MovieFilter NONE = new MovieFilter(null, null, null, null, null);
+
+    boolean isEmpty() {
+        return director == null && yearFrom == null && yearTo == null && minRating == null && watched == null;
+    }
+
+    boolean test(Movie movie) {
+        if (director != null && !director.equals(movie.getDirector())) {
+            return false;
+        }
+        if (hasYearRange() && movie.getYear() == null) {
+            return false;
+        }
+        if (yearFrom != null && movie.getYear() < yearFrom) {
+            return false;
+        }
+        if (yearTo != null && movie.getYear() > yearTo) {
+            return false;
+        }
+        if (minRating != null && (movie.getRating() == null || movie.getRating() < minRating)) {
+            return false;
+        }
+        return watched == null || watched == movie.isWatched();
+    }
+
+    boolean hasYearRange() {
+        return yearFrom != null || yearTo != null;
+    }
+}
@@ -0,0 +1,22 @@
+package edu.trincoll.tracker;
+
+/**
+ * Derived view of the catalog that {@link MovieController} keeps current on every write.
+ * <p>
+ * Calls for one id arrive under that id's write lock, in the order they were applied;
+ * calls for different ids may run concurrently.
+ */
+interface MovieIndex {
+
+    void added(Movie movie);
+
+    void removed(Movie movie);
+
+    /** {@code updated} replaced {@code old}; both carry the same id. */
+    default void replaced(Movie old, Movie updated) {
+        removed(old);
+        added(updated);
+    }
+
+    void clear();
+}
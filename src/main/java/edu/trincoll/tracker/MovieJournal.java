@@ -0,0 +1,392 @@
+package edu.trincoll.tracker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only write-ahead log of catalog changes, with periodic snapshots.
+ * <p>
+ * Callers apply a change in memory and then {@link #append} it while still holding the
+ * movie's write lock, which fixes the log order per movie. Appends only enqueue; a single
+ * flusher thread writes whatever has queued up and covers the whole group with one
+ * {@code force}, so concurrent writers share fsyncs instead of taking turns.
+ * <p>
+ * Every {@code snapshotEvery} entries the flusher rolls to a new segment and a background
+ * thread writes the catalog to a snapshot. Entries carry full movie state, so replaying
+ * the newer segments over a snapshot taken while writes continue still converges;
+ * older segments are then deleted and startup only replays the tail.
+ */
+@Component
+public class MovieJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MovieJournal.class);
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    enum Op { CREATE, UPDATE, DELETE }
+
+    /** One log line; {@code movie} is null for deletes. */
+    record Entry(long seq, Op op, long id, Movie movie) {
+    }
+
+    /** Catalog rebuilt from disk, plus the first id that is safe to hand out. */
+    record Recovered(Collection<Movie> movies, long nextId) {
+    }
+
+    private record Pending(long seq, Op op, long id, byte[] movie, CompletableFuture<Void> done) {
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int snapshotEvery;
+    private final ObjectMapper mapper;
+    private final ObjectWriter movieWriter;
+
+    // Guards queue, lastSeq, running and failure
+    private final Object lock = new Object();
+    private List<Pending> queue = new ArrayList<>();
+    private long lastSeq;
+    private boolean running;
+    private IOException failure;
+
+    // Owned by the flusher thread once started
+    private FileChannel segment;
+    private long segmentEntries;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    private Thread flusher;
+    private ExecutorService snapshotter;
+    private volatile CompletableFuture<Void> snapshotInFlight = DONE;
+    private Supplier<? extends Iterable<Movie>> catalog;
+    private LongSupplier nextId;
+
+    public MovieJournal(ObjectMapper mapper, MovieTrackerProperties properties) {
+        MovieTrackerProperties.Persistence persistence = properties.getPersistence();
+        this.enabled = persistence.isEnabled();
+        this.directory = persistence.getDirectory();
+        this.snapshotEvery = Math.max(1, persistence.getSnapshotEvery());
+        this.mapper = mapper;
+        this.movieWriter = mapper.writerFor(Movie.class);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Loads the newest snapshot and replays the log written after it.
+     * Must run before {@link #start}.
+     */
+    Recovered recover() throws IOException {
+        if (!enabled) {
+            return new Recovered(List.of(), 1);
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+
+        Map<Long, Movie> movies = new HashMap<>();
+        long snapshotSeq = 0;
+        long maxId = 0;
+        long next = 1;
+
+        Path snapshot = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (snapshot != null) {
+            MovieSnapshot.Reader reader = MovieSnapshot.open(snapshot);
+            snapshotSeq = reader.seq();
+            next = reader.nextId();
+            reader.forEach(movie -> movies.put(movie.getId(), movie));
+        }
+
+        long seq = snapshotSeq;
+        ObjectReader entryReader = mapper.readerFor(Entry.class);
+        for (Path path : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            // Segments roll every snapshotEvery entries, so one fits in memory
+            byte[] bytes = Files.readAllBytes(path);
+            int start = 0;
+            while (true) {
+                int end = indexOf(bytes, (byte) '\n', start);
+                Entry entry = null;
+                if (end >= 0) {
+                    try {
+                        entry = entryReader.readValue(bytes, start, end - start);
+                    } catch (JsonProcessingException e) {
+                        // Falls through to the truncation below
+                    }
+                }
+                if (entry == null) {
+                    if (start < bytes.length) {
+                        // A crash mid-write leaves a torn last line; nothing after it was acknowledged.
+                        // Cut it off, or start() would append new entries behind it and the next
+                        // recovery would stop here and drop them
+                        log.warn("Truncating torn journal entry at the end of {}", path.getFileName());
+                        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                            channel.truncate(start);
+                            channel.force(true);
+                        }
+                    }
+                    break;
+                }
+                start = end + 1;
+                maxId = Math.max(maxId, entry.id());
+                if (entry.seq() <= snapshotSeq) {
+                    continue;
+                }
+                seq = entry.seq();
+                if (entry.op() == Op.DELETE) {
+                    movies.remove(entry.id());
+                } else {
+                    movies.put(entry.id(), entry.movie());
+                }
+            }
+        }
+
+        for (Long id : movies.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        synchronized (lock) {
+            lastSeq = seq;
+        }
+        log.info("Recovered {} movies up to journal entry {} in {} ms", movies.size(), seq,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return new Recovered(movies.values(), Math.max(next, maxId + 1));
+    }
+
+    /**
+     * Opens a fresh segment and starts the flusher.
+     *
+     * @param catalog live view of the catalog in id order, iterated when snapshotting
+     * @param nextId  next id the catalog will hand out, recorded in snapshots
+     */
+    void start(Supplier<? extends Iterable<Movie>> catalog, LongSupplier nextId) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        this.catalog = catalog;
+        this.nextId = nextId;
+        synchronized (lock) {
+            segment = openSegment(lastSeq + 1);
+            running = true;
+        }
+        snapshotter = Executors.newSingleThreadExecutor(r -> new Thread(r, "movie-snapshot"));
+        flusher = new Thread(this::flushLoop, "movie-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues a change for the log. The future completes once the entry is on disk.
+     * Call while holding the write lock of the movie being changed.
+     */
+    CompletableFuture<Void> append(Op op, Movie movie) {
+        if (!enabled) {
+            return DONE;
+        }
+        byte[] json;
+        try {
+            json = op == Op.DELETE ? null : movieWriter.writeValueAsBytes(movie);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (lock) {
+            if (failure != null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            if (!running) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Journal is not running"));
+            }
+            queue.add(new Pending(++lastSeq, op, movie.getId(), json, done));
+            lock.notifyAll();
+        }
+        return done;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (lock) {
+                while (queue.isEmpty() && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                batch = queue;
+                queue = new ArrayList<>();
+            }
+
+            try {
+                write(batch);
+            } catch (IOException e) {
+                log.error("Journal write failed; rejecting further changes", e);
+                List<Pending> rejected;
+                synchronized (lock) {
+                    failure = e;
+                    rejected = queue;
+                    queue = new ArrayList<>();
+                }
+                batch.forEach(p -> p.done().completeExceptionally(e));
+                rejected.forEach(p -> p.done().completeExceptionally(e));
+                return;
+            }
+            batch.forEach(p -> p.done().complete(null));
+        }
+    }
+
+    private void write(List<Pending> batch) throws IOException {
+        buffer.reset();
+        for (Pending p : batch) {
+            buffer.write(("{\"seq\":" + p.seq() + ",\"op\":\"" + p.op() + "\",\"id\":" + p.id() + ",\"movie\":")
+                    .getBytes(StandardCharsets.US_ASCII));
+            buffer.write(p.movie() == null ? NULL : p.movie());
+            buffer.write('}');
+            buffer.write('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            segment.write(bytes);
+        }
+        // One fsync covers every writer in the group
+        segment.force(false);
+
+        segmentEntries += batch.size();
+        if (segmentEntries >= snapshotEvery && snapshotInFlight.isDone()) {
+            long boundary = batch.get(batch.size() - 1).seq();
+            segment.close();
+            segment = openSegment(boundary + 1);
+            segmentEntries = 0;
+            snapshotInFlight = CompletableFuture.runAsync(() -> snapshot(boundary), snapshotter);
+        }
+    }
+
+    /**
+     * Writes the catalog as of (at least) {@code boundary}, then drops the segments it covers.
+     */
+    private void snapshot(long boundary) {
+        try {
+            Path target = directory.resolve(name(SNAPSHOT_PREFIX, boundary, SNAPSHOT_SUFFIX));
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            MovieSnapshot.write(tmp, catalog.get(), boundary, nextId.getAsLong());
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (Path old : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (sequenceOf(old, SEGMENT_PREFIX, SEGMENT_SUFFIX) <= boundary) {
+                    Files.deleteIfExists(old);
+                }
+            }
+            for (Path old : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (!old.equals(target)) {
+                    Files.deleteIfExists(old);
+                }
+            }
+            log.debug("Snapshot written through journal entry {}", boundary);
+        } catch (IOException | IllegalArgumentException e) {
+            // The log still holds everything; try again at the next boundary
+            log.warn("Snapshot at journal entry {} failed", boundary, e);
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+            snapshotter.shutdown();
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        return FileChannel.open(directory.resolve(name(SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String name(String prefix, long seq, String suffix) {
+        return prefix + String.format("%020d", seq) + suffix;
+    }
+
+    private static long sequenceOf(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    // Zero-padded names sort in sequence order
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path latest(String prefix, String suffix) throws IOException {
+        List<Path> paths = list(prefix, suffix);
+        return paths.isEmpty() ? null : paths.get(paths.size() - 1);
+    }
+}
@@ -0,0 +1,112 @@
+package edu.trincoll.tracker;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Catalog meters, scraped from {@code /actuator/prometheus} next to Spring's per-endpoint
+ * {@code http.server.requests} histograms.
+ * <p>
+ * Every meter is registered once, up front, and held in a field: recording is a counter bump
+ * or a histogram bucket increment, with no registry lookup, tag array or lambda per call.
+ * Timers take raw nanoTime deltas for the same reason. Timers and the search summary publish
+ * histogram buckets, so p50/p99/p999 are computed at query time and aggregate across instances.
+ * Scans and serializations take microseconds, so their buckets start at a microsecond rather
+ * than Micrometer's default millisecond, below which every sample would share one bucket.
+ */
+@Component
+public class MovieMetrics {
+
+    // Bucket range of the scan and serialization timers
+    private static final Duration FASTEST = Duration.ofNanos(1_000);
+    private static final Duration SLOWEST_SCAN = Duration.ofSeconds(10);
+    private static final Duration SLOWEST_SERIALIZATION = Duration.ofSeconds(1);
+
+    private final Counter duplicates;
+    private final Counter notFound;
+    private final DistributionSummary searchResults;
+    private final Timer listScan;
+    private final Timer searchScan;
+    private final Timer movieSerialization;
+    private final Timer responseSerialization;
+
+    public MovieMetrics(MeterRegistry registry, MovieRepository store) {
+        Gauge.builder("movies.store.size", store, MovieRepository::size)
+                .description("Movies in the catalog")
+                .baseUnit("movies")
+                .register(registry);
+        this.duplicates = Counter.builder("movies.duplicates.rejected")
+                .description("Creates, imports and renames rejected because the title was taken")
+                .register(registry);
+        this.notFound = Counter.builder("movies.not.found")
+                .description("Lookups and writes that named a movie id that doesn't exist")
+                .register(registry);
+        this.searchResults = DistributionSummary.builder("movies.search.results")
+                .description("Movies returned per title search")
+                .baseUnit("movies")
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) MovieController.MAX_PAGE_SIZE)
+                .register(registry);
+        this.listScan = scanTimer(registry, "list");
+        this.searchScan = scanTimer(registry, "search");
+        this.movieSerialization = serializationTimer(registry, "movie");
+        this.responseSerialization = serializationTimer(registry, "response");
+    }
+
+    private static Timer scanTimer(MeterRegistry registry, String query) {
+        return Timer.builder("movies.scan")
+                .description("Time spent pulling movies out of the store and indexes, before serialization")
+                .tag("query", query)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(FASTEST)
+                .maximumExpectedValue(SLOWEST_SCAN)
+                .register(registry);
+    }
+
+    private static Timer serializationTimer(MeterRegistry registry, String body) {
+        // movie: one movie rendered to cached bytes; response: a JSON body written by Spring MVC
+        return Timer.builder("movies.serialize")
+                .description("Time spent rendering movies to JSON")
+                .tag("body", body)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(FASTEST)
+                .maximumExpectedValue(SLOWEST_SERIALIZATION)
+                .register(registry);
+    }
+
+    void duplicateRejected() {
+        duplicates.increment();
+    }
+
+    void notFound() {
+        notFound.increment();
+    }
+
+    void searchResults(int count) {
+        searchResults.record(count);
+    }
+
+    void listScanned(long nanos) {
+        listScan.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void searchScanned(long nanos) {
+        searchScan.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void movieSerialized(long nanos) {
+        movieSerialization.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void responseSerialized(long nanos) {
+        responseSerialization.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,72 @@
+package edu.trincoll.tracker;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A JSON merge patch (RFC 7396) for one movie: fields present in the object replace the
+ * stored ones, absent fields are kept, and null clears a nullable field.
+ * <p>
+ * {@code id} names the movie in a batch and is otherwise ignored; {@code version}, if present,
+ * must equal the stored version for the patch to apply. {@code createdAt} can't be patched.
+ */
+final class MoviePatch {
+
+    private final JsonNode fields;
+
+    private MoviePatch(JsonNode fields) {
+        this.fields = fields;
+    }
+
+    /** Checks field names and types; throws IllegalArgumentException naming the first problem. */
+    static MoviePatch of(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Patch must be a JSON object");
+        }
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            JsonNode value = field.getValue();
+            boolean ok = switch (field.getKey()) {
+                case "title" -> value.isTextual();
+                case "director" -> value.isTextual() || value.isNull();
+                case "year", "rating" -> value.canConvertToInt() && value.isIntegralNumber() || value.isNull();
+                case "watched" -> value.isBoolean();
+                case "id", "version" -> value.canConvertToLong() && value.isIntegralNumber();
+                default -> throw new IllegalArgumentException("Unknown field: " + field.getKey());
+            };
+            if (!ok) {
+                throw new IllegalArgumentException("Invalid value for " + field.getKey());
+            }
+        }
+        return new MoviePatch(node);
+    }
+
+    /** The movie id, for batch entries; null if absent. */
+    Long id() {
+        return fields.has("id") ? fields.get("id").asLong() : null;
+    }
+
+    /** The version the patch was written against; null if unconditional. */
+    Long expectedVersion() {
+        return fields.has("version") ? fields.get("version").asLong() : null;
+    }
+
+    /** A new movie with this patch applied over {@code existing}'s fields; id, createdAt and version are left unset. */
+    Movie applyTo(Movie existing) {
+        Movie patched = new Movie();
+        patched.setTitle(fields.has("title") ? fields.get("title").asText() : existing.getTitle());
+        patched.setDirector(fields.has("director") ? text(fields.get("director")) : existing.getDirector());
+        patched.setYear(fields.has("year") ? integer(fields.get("year")) : existing.getYear());
+        patched.setRating(fields.has("rating") ? integer(fields.get("rating")) : existing.getRating());
+        patched.setWatched(fields.has("watched") ? fields.get("watched").asBoolean() : existing.isWatched());
+        return patched;
+    }
+
+    private static String text(JsonNode node) {
+        return node.isNull() ? null : node.asText();
+    }
+
+    private static Integer integer(JsonNode node) {
+        return node.isNull() ? null : node.asInt();
+    }
+}
@@ -0,0 +1,32 @@
+package edu.trincoll.tracker;
+
+/**
+ * Id-ordered storage behind {@link MovieController}.
+ * <p>
+ * Stored movies are never mutated: writers replace a movie with {@link #put} instead of
+ * changing the instance they read. Implementations are safe for concurrent use; iteration
+ * is weakly consistent, like the concurrent collections.
+ */
+public interface MovieRepository {
+
+    /** Returns the movie with this id, or null. */
+    Movie get(long id);
+
+    /** Inserts the movie, or replaces the one with the same id. */
+    void put(Movie movie);
+
+    /** Removes and returns the movie with this id, or returns null if there was none. */
+    Movie remove(long id);
+
+    int size();
+
+    /** Movies with an id greater than {@code afterId}, ascending. */
+    Iterable<Movie> after(long afterId);
+
+    /** Every movie, ascending by id. */
+    default Iterable<Movie> values() {
+        return after(Long.MIN_VALUE);
+    }
+
+    void clear();
+}
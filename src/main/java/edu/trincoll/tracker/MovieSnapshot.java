@@ -0,0 +1,212 @@
+package edu.trincoll.tracker;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-layout binary snapshot of the catalog, read through a memory mapping.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header   magic, version, seq, nextId, rowCount, stringCount, stringsOffset
+ * rows     rowCount x 40 bytes, ascending id:
+ *          id(8) createdAt epoch millis(8) title(4) director(4) year(4) rating(1) watched(1) pad(2)
+ *          version(8)
+ * strings  (stringCount + 1) offsets(4), then UTF-8 bytes
+ * </pre>
+ * Titles and directors are references into a deduplicated string table, so a director
+ * shared by many rows is stored (and decoded) once.
+ */
+final class MovieSnapshot {
+
+    private static final int MAGIC = 0x4D56_5331; // "MVS1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int ROW_BYTES = 40;
+    private static final int NO_STRING = -1;
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private MovieSnapshot() {
+    }
+
+    /**
+     * Writes {@code movies}, which must be in ascending id order. Stored movies are never
+     * mutated, so rows can be read without locking.
+     *
+     * @param seq    last journal entry the snapshot covers
+     * @param nextId next id the catalog will hand out
+     */
+    static void write(Path path, Iterable<Movie> movies, long seq, long nextId) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        ByteArrayOutputStream stringData = new ByteArrayOutputStream(1 << 20);
+        ByteArrayOutputStream offsetBytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream stringOffsets = new DataOutputStream(offsetBytes);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+            int rows = 0;
+            long lastId = Long.MIN_VALUE;
+            for (Movie movie : movies) {
+                long id = movie.getId();
+                if (id <= lastId) {
+                    throw new IllegalArgumentException("Movies must be in ascending id order");
+                }
+                lastId = id;
+                out.writeLong(id);
+                out.writeLong(movie.getCreatedAt() == null ? NO_TIME
+                        : movie.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+                out.writeInt(intern(movie.getTitle(), stringIds, stringData, stringOffsets));
+                out.writeInt(intern(movie.getDirector(), stringIds, stringData, stringOffsets));
+                out.writeInt(movie.getYear() == null ? NO_YEAR : movie.getYear());
+                out.writeByte(RatingByte.encode(movie.getRating()));
+                out.writeByte(movie.isWatched() ? 1 : 0);
+                out.writeShort(0);
+                out.writeLong(movie.getVersion());
+                rows++;
+            }
+
+            long stringsOffset = HEADER_BYTES + (long) rows * ROW_BYTES;
+            stringOffsets.writeInt(stringData.size());
+            offsetBytes.writeTo(out);
+            stringData.writeTo(out);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(seq)
+                    .putLong(nextId)
+                    .putInt(rows)
+                    .putInt(stringIds.size())
+                    .putLong(stringsOffset)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    private static int intern(String s, Map<String, Integer> ids, ByteArrayOutputStream data,
+                              DataOutputStream offsets) throws IOException {
+        if (s == null) {
+            return NO_STRING;
+        }
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = ids.size();
+            ids.put(s, id);
+            offsets.writeInt(data.size());
+            data.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    /**
+     * Maps a snapshot for reading. The mapping stays valid after the file is replaced or deleted,
+     * and is released once the reader is garbage collected.
+     */
+    static Reader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.BIG_ENDIAN);
+            return new Reader(map, path);
+        }
+    }
+
+    /**
+     * Random-access view over a mapped snapshot. Not thread-safe.
+     */
+    static final class Reader {
+
+        private final MappedByteBuffer map;
+        private final long seq;
+        private final long nextId;
+        private final int rows;
+        private final int stringsOffset;
+        private final int stringDataOffset;
+        // Decoded strings, so a director shared by many rows becomes one String
+        private final String[] strings;
+
+        private Reader(MappedByteBuffer map, Path path) throws IOException {
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a movie snapshot: " + path);
+            }
+            this.map = map;
+            this.seq = map.getLong(8);
+            this.nextId = map.getLong(16);
+            this.rows = map.getInt(24);
+            int stringCount = map.getInt(28);
+            this.stringsOffset = (int) map.getLong(32);
+            this.stringDataOffset = stringsOffset + (stringCount + 1) * Integer.BYTES;
+            this.strings = new String[stringCount];
+        }
+
+        long seq() { return seq; }
+
+        long nextId() { return nextId; }
+
+        int size() { return rows; }
+
+        /** Decodes one row. */
+        Movie row(int row) {
+            int at = HEADER_BYTES + row * ROW_BYTES;
+            Movie movie = new Movie();
+            movie.setId(map.getLong(at));
+            long millis = map.getLong(at + 8);
+            movie.setCreatedAt(millis == NO_TIME ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                    Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+            movie.setTitle(string(map.getInt(at + 16)));
+            movie.setDirector(string(map.getInt(at + 20)));
+            int year = map.getInt(at + 24);
+            movie.setYear(year == NO_YEAR ? null : year);
+            movie.setRating(RatingByte.decode(map.get(at + 28)));
+            movie.setWatched(map.get(at + 29) != 0);
+            movie.setVersion(map.getLong(at + 32));
+            return movie;
+        }
+
+        void forEach(Consumer<Movie> action) {
+            for (int i = 0; i < rows; i++) {
+                action.accept(row(i));
+            }
+        }
+
+        private String string(int ref) {
+            if (ref == NO_STRING) {
+                return null;
+            }
+            String s = strings[ref];
+            if (s == null) {
+                int start = map.getInt(stringsOffset + ref * Integer.BYTES);
+                int end = map.getInt(stringsOffset + (ref + 1) * Integer.BYTES);
+                byte[] bytes = new byte[end - start];
+                map.get(stringDataOffset + start, bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+                strings[ref] = s;
+            }
+            return s;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package edu.trincoll.tracker;
+
+import java.time.ZoneOffset;
+import java.util.Comparator;
+
+/**
+ * Orders accepted by {@code GET /api/movies?sort=}; a leading '-' means descending.
+ * Unrated movies come last in either rating order. Ties go to the lower id, except for
+ * {@code -createdAt}, where the higher (newer) id comes first.
+ */
+enum MovieSort {
+
+    RATING("rating"),
+    RATING_DESC("-rating"),
+    CREATED_AT("createdAt"),
+    CREATED_AT_DESC("-createdAt");
+
+    private static final Comparator<Movie> BY_ID = Comparator.comparing(Movie::getId);
+
+    private final String param;
+
+    MovieSort(String param) {
+        this.param = param;
+    }
+
+    /** The order named by a {@code sort} parameter, or null if there is none. */
+    static MovieSort parse(String param) {
+        for (MovieSort sort : values()) {
+            if (sort.param.equals(param)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+
+    Comparator<Movie> comparator() {
+        return switch (this) {
+            case RATING -> Comparator.comparing(Movie::getRating, Comparator.nullsLast(Comparator.<Integer>naturalOrder()))
+                    .thenComparing(BY_ID);
+            case RATING_DESC -> Comparator.comparing(Movie::getRating, Comparator.nullsLast(Comparator.<Integer>reverseOrder()))
+                    .thenComparing(BY_ID);
+            case CREATED_AT -> Comparator.comparingLong(MovieSort::createdMillis).thenComparing(BY_ID);
+            case CREATED_AT_DESC -> Comparator.comparingLong(MovieSort::createdMillis).thenComparing(BY_ID).reversed();
+        };
+    }
+
+    static long createdMillis(Movie movie) {
+        return movie.getCreatedAt() == null ? Long.MIN_VALUE
+                : movie.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,37 @@
+package edu.trincoll.tracker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Catalog-wide aggregates returned by {@code GET /api/movies/stats}.
+ * {@code averageRating} covers rated movies only and is null when none are rated;
+ * {@code byDecade} is keyed like "1990s" and skips movies without a year.
+ */
+public record MovieStats(long total, long watched, long unwatched, long rated, Double averageRating,
+                         Map<String, Long> byDirector, Map<String, Long> byDecade) {
+
+    /** Aggregates over the union of disjoint catalogs, e.g. the shards of a cluster. */
+    static MovieStats sum(List<MovieStats> parts) {
+        long total = 0;
+        long watched = 0;
+        long rated = 0;
+        long ratingSum = 0;
+        Map<String, Long> byDirector = new TreeMap<>();
+        Map<String, Long> byDecade = new TreeMap<>();
+        for (MovieStats part : parts) {
+            total += part.total();
+            watched += part.watched();
+            rated += part.rated();
+            if (part.averageRating() != null) {
+                // Ratings are whole numbers, so rounding recovers each part's exact sum
+                ratingSum += Math.round(part.averageRating() * part.rated());
+            }
+            part.byDirector().forEach((director, count) -> byDirector.merge(director, count, Long::sum));
+            part.byDecade().forEach((decade, count) -> byDecade.merge(decade, count, Long::sum));
+        }
+        return new MovieStats(total, watched, total - watched, rated, rated == 0 ? null : (double) ratingSum / rated,
+                byDirector, byDecade);
+    }
+}
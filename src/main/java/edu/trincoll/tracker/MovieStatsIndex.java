@@ -0,0 +1,131 @@
+package edu.trincoll.tracker;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals behind {@link MovieStats}, adjusted on every write instead of scanning the store.
+ * <p>
+ * Counters are {@link LongAdder}s, so concurrent writers rarely contend, and a read sums a
+ * fixed number of cells per counter whatever the catalog size. A read is not atomic across
+ * counters: under concurrent writes the figures may reflect slightly different moments.
+ */
+final class MovieStatsIndex implements MovieIndex {
+
+    private static final int FIRST_DECADE = 1880;
+    private static final int LAST_DECADE = 2100;
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder watched = new LongAdder();
+    private final LongAdder rated = new LongAdder();
+    private final LongAdder ratingSum = new LongAdder();
+    // Directors seen so far; counts drop to zero rather than leaving the map
+    private final Map<String, LongAdder> byDirector = new ConcurrentHashMap<>();
+    // One bucket per decade in Movie's valid year range
+    private final LongAdder[] byDecade = new LongAdder[(LAST_DECADE - FIRST_DECADE) / 10 + 1];
+
+    MovieStatsIndex() {
+        for (int i = 0; i < byDecade.length; i++) {
+            byDecade[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void added(Movie movie) {
+        count(movie, 1);
+    }
+
+    @Override
+    public void removed(Movie movie) {
+        count(movie, -1);
+    }
+
+    @Override
+    public void replaced(Movie old, Movie updated) {
+        // Skip the counters an edit doesn't move; most updates leave director and year alone
+        if (old.isWatched() != updated.isWatched()) {
+            watched.add(updated.isWatched() ? 1 : -1);
+        }
+        if (!Objects.equals(old.getRating(), updated.getRating())) {
+            rating(old, -1);
+            rating(updated, 1);
+        }
+        if (!Objects.equals(old.getDirector(), updated.getDirector())) {
+            director(old, -1);
+            director(updated, 1);
+        }
+        if (!Objects.equals(old.getYear(), updated.getYear())) {
+            decade(old, -1);
+            decade(updated, 1);
+        }
+    }
+
+    @Override
+    public void clear() {
+        total.reset();
+        watched.reset();
+        rated.reset();
+        ratingSum.reset();
+        byDirector.clear();
+        for (LongAdder decade : byDecade) {
+            decade.reset();
+        }
+    }
+
+    MovieStats snapshot() {
+        long totalCount = total.sum();
+        long watchedCount = watched.sum();
+        long ratedCount = rated.sum();
+        long sum = ratingSum.sum();
+
+        Map<String, Long> directors = new TreeMap<>();
+        byDirector.forEach((director, count) -> {
+            long n = count.sum();
+            if (n > 0) {
+                directors.put(director, n);
+            }
+        });
+        Map<String, Long> decades = new TreeMap<>();
+        for (int i = 0; i < byDecade.length; i++) {
+            long n = byDecade[i].sum();
+            if (n > 0) {
+                decades.put((FIRST_DECADE + i * 10) + "s", n);
+            }
+        }
+        return new MovieStats(totalCount, watchedCount, totalCount - watchedCount, ratedCount,
+                ratedCount == 0 ? null : (double) sum / ratedCount, directors, decades);
+    }
+
+    private void count(Movie movie, int delta) {
+        total.add(delta);
+        if (movie.isWatched()) {
+            watched.add(delta);
+        }
+        rating(movie, delta);
+        director(movie, delta);
+        decade(movie, delta);
+    }
+
+    private void rating(Movie movie, int delta) {
+        if (movie.getRating() != null) {
+            rated.add(delta);
+            ratingSum.add((long) delta * movie.getRating());
+        }
+    }
+
+    private void director(Movie movie, int delta) {
+        if (movie.getDirector() != null) {
+            byDirector.computeIfAbsent(movie.getDirector(), d -> new LongAdder()).add(delta);
+        }
+    }
+
+    private void decade(Movie movie, int delta) {
+        Integer year = movie.getYear();
+        if (year != null && year >= FIRST_DECADE && year < LAST_DECADE + 10) {
+            byDecade[(year - FIRST_DECADE) / 10].add(delta);
+        }
+    }
+}
@@ -1,7 +1,19 @@
 package edu.trincoll.tracker;
 
+import java.util.Arrays;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Main Spring Boot application class.
@@ -10,9 +22,60 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Examples: BookmarkApplication, QuoteKeeperApplication, HabitTrackerApplication
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class MovieTrackerApplication {
     
     public static void main(String[] args) {
         SpringApplication.run(MovieTrackerApplication.class, args);
     }
-}
\ No newline at end of file
+
+    // Catalog storage, picked by movies.store.backend
+    @Bean
+    MovieRepository movieRepository(MovieTrackerProperties properties) {
+        return switch (properties.getStore().getBackend()) {
+            case SKIPLIST -> new SkipListMovieRepository();
+            case COLUMNAR -> new ColumnarMovieRepository();
+        };
+    }
+
+    // Jackson keeps its buffers per thread by default, and a virtual thread per request never reuses
+    // one; a shared pool hands the same few buffers to every request
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer sharedJacksonBuffers() {
+        return builder -> builder.postConfigurer(mapper -> mapper.getFactory().setRecyclerPool(WireFormat.BUFFERS));
+    }
+
+    // Stands in for Boot's JSON converter so response serialization shows up in movies.serialize
+    @Bean
+    MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                            MovieMetrics metrics) {
+        return new TimedJsonHttpMessageConverter(objectMapper, metrics);
+    }
+
+    // Same for Smile and CBOR, which Spring MVC would otherwise set up with its own mappers
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper,
+                                                                       MovieMetrics metrics) {
+        return new TimedBinaryHttpMessageConverters.Smile(objectMapper, metrics);
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper,
+                                                                     MovieMetrics metrics) {
+        return new TimedBinaryHttpMessageConverters.Cbor(objectMapper, metrics);
+    }
+
+    // Rate and concurrency limits in front of the endpoints that scan the catalog
+    @Bean
+    WebMvcConfigurer admissionControlConfigurer(AdmissionControl admission) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                // Only the guarded paths, so single-movie requests never reach it
+                registry.addInterceptor(admission).addPathPatterns(Arrays.stream(AdmissionControl.Endpoint.values())
+                        .map(endpoint -> endpoint.pattern)
+                        .toList());
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package edu.trincoll.tracker;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings under {@code movies.*} in application.yml.
+ */
+@ConfigurationProperties(prefix = "movies")
+public class MovieTrackerProperties {
+
+    private final Persistence persistence = new Persistence();
+    private final Store store = new Store();
+    private final Cache cache = new Cache();
+    private final Changes changes = new Changes();
+    private final Cluster cluster = new Cluster();
+    private final Admission admission = new Admission();
+
+    public Persistence getPersistence() { return persistence; }
+
+    public Store getStore() { return store; }
+
+    public Cache getCache() { return cache; }
+
+    public Changes getChanges() { return changes; }
+
+    public Cluster getCluster() { return cluster; }
+
+    public Admission getAdmission() { return admission; }
+
+    /**
+     * Write-ahead log and snapshot settings ({@code movies.persistence.*}).
+     */
+    public static class Persistence {
+
+        // Off unless configured, so tests and benchmarks stay in memory
+        private boolean enabled = false;
+
+        private Path directory = Path.of("data");
+
+        // Log entries written between two snapshots
+        private int snapshotEvery = 100_000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Path getDirectory() { return directory; }
+        public void setDirectory(Path directory) { this.directory = directory; }
+
+        public int getSnapshotEvery() { return snapshotEvery; }
+        public void setSnapshotEvery(int snapshotEvery) { this.snapshotEvery = snapshotEvery; }
+    }
+
+    /**
+     * In-memory catalog settings ({@code movies.store.*}).
+     */
+    public static class Store {
+
+        public enum Backend {
+            // One Movie object per entry; cheapest reads, most heap
+            SKIPLIST,
+            // Primitive columns; a fraction of the heap, reads build a Movie
+            COLUMNAR
+        }
+
+        private Backend backend = Backend.SKIPLIST;
+
+        public Backend getBackend() { return backend; }
+        public void setBackend(Backend backend) { this.backend = backend; }
+    }
+
+    /**
+     * Serialized response cache settings ({@code movies.cache.*}).
+     */
+    public static class Cache {
+
+        // Movie bodies kept; 0 turns caching off (ETags still work)
+        private int maxEntries = 100_000;
+
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    }
+
+    /**
+     * Change feed settings ({@code movies.changes.*}).
+     */
+    public static class Changes {
+
+        // Events kept for resuming readers; older cursors get a reset
+        private int capacity = 65_536;
+
+        // Idle time before a keep-alive comment goes to SSE clients; at least 1ms
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+
+        public Duration getHeartbeat() { return heartbeat; }
+        public void setHeartbeat(Duration heartbeat) { this.heartbeat = heartbeat; }
+    }
+
+    /**
+     * Sharding settings ({@code movies.cluster.*}). Every node lists the same nodes in the same order.
+     */
+    public static class Cluster {
+
+        // Off: this instance holds the whole catalog
+        private boolean enabled = false;
+
+        // Base URL of every node, e.g. http://localhost:8081
+        private List<URI> nodes = new ArrayList<>();
+
+        // This instance's position in nodes
+        private int self = 0;
+
+        // Ring points per node; more points spread ids more evenly
+        private int virtualNodes = 128;
+
+        // Per call to another node before answering 503
+        private Duration timeout = Duration.ofSeconds(5);
+
+        // Shared by every node, to sign the calls between them; required with clustering on
+        private String secret;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public List<URI> getNodes() { return nodes; }
+        public void setNodes(List<URI> nodes) { this.nodes = nodes; }
+
+        public int getSelf() { return self; }
+        public void setSelf(int self) { this.self = self; }
+
+        public int getVirtualNodes() { return virtualNodes; }
+        public void setVirtualNodes(int virtualNodes) { this.virtualNodes = virtualNodes; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+        public String getSecret() { return secret; }
+        public void setSecret(String secret) { this.secret = secret; }
+    }
+
+    /**
+     * Limits on the endpoints that scan the catalog: list, search and export ({@code movies.admission.*}).
+     */
+    public static class Admission {
+
+        // Off (the default): every request is served, however many arrive
+        private boolean enabled;
+
+        // Sustained requests per second, per client and endpoint; past it they get 429
+        private double rate = 20;
+
+        // Requests a client may send at once after a quiet spell
+        private int burst = 50;
+
+        // Scans served at once, across all clients; past it they get 503. Scans are CPU-bound,
+        // so more than one per core only slices the same CPU thinner
+        private int maxInFlight = Runtime.getRuntime().availableProcessors();
+
+        // Client buckets kept before idle ones are dropped
+        private int maxClients = 100_000;
+
+        // Header naming the client, e.g. an API key; unset or absent means the remote address
+        private String clientHeader;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getRate() { return rate; }
+        public void setRate(double rate) { this.rate = rate; }
+
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+
+        public int getMaxClients() { return maxClients; }
+        public void setMaxClients(int maxClients) { this.maxClients = maxClients; }
+
+        public String getClientHeader() { return clientHeader; }
+        public void setClientHeader(String clientHeader) { this.clientHeader = clientHeader; }
+    }
+}
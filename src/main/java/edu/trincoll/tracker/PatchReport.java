@@ -0,0 +1,28 @@
+package edu.trincoll.tracker;
+
+import java.util.List;
+
+/**
+ * Result of a batch patch: totals plus one entry per submitted patch, in submission order.
+ */
+public record PatchReport(int updated, int rejected, List<Item> items) {
+
+    public enum Status { UPDATED, INVALID, NOT_FOUND, VERSION_MISMATCH, DUPLICATE, UNAVAILABLE }
+
+    /**
+     * Outcome for the patch at {@code index} in the request body. {@code version} is the
+     * movie's new version when updated; {@code message} is set only when rejected.
+     */
+    public record Item(int index, Status status, Long id, Long version, String message) {
+    }
+
+    static PatchReport of(List<Item> items) {
+        int updated = 0;
+        for (Item item : items) {
+            if (item.status() == Status.UPDATED) {
+                updated++;
+            }
+        }
+        return new PatchReport(updated, items.size() - updated, items);
+    }
+}
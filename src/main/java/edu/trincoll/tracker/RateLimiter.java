@@ -0,0 +1,87 @@
+package edu.trincoll.tracker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per key, updated without locks.
+ * <p>
+ * Each bucket is one {@link AtomicLong}: the time at which it will be full again (the generic
+ * cell rate algorithm's theoretical arrival time). Taking a token pushes that time one interval
+ * further out with a compare-and-set, and a request is refused while the time lies more than a
+ * burst ahead of now. Refilling is implicit in the clock moving, so nothing runs between calls.
+ * <p>
+ * A bucket whose time has passed is full, the same as a missing one, so once {@code maxKeys}
+ * buckets exist the full ones are dropped. At most one sweep runs per second; if every bucket is
+ * busy the map simply grows past the bound until they idle.
+ */
+final class RateLimiter {
+
+    private static final long SWEEP_INTERVAL = 1_000_000_000L;
+
+    private final long interval;
+    private final long tolerance;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    /**
+     * @param perSecond sustained rate per key
+     * @param burst     tokens a key may spend at once after a quiet spell
+     * @param maxKeys   buckets kept before full ones are dropped
+     * @param clock     nanoTime-style ticks
+     */
+    RateLimiter(double perSecond, int burst, int maxKeys, LongSupplier clock) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.interval = Math.max(1, (long) (1e9 / perSecond));
+        this.tolerance = Math.multiplyExact(interval, burst - 1L);
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Takes a token from {@code key}'s bucket.
+     *
+     * @return 0 if the request may go ahead, otherwise the nanoseconds until a token is free
+     */
+    long acquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong full = buckets.get(key);
+        if (full == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+            }
+            full = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long at = full.get();
+            // Differences, not comparisons, so nanoTime wrapping around stays harmless
+            long start = at - now > 0 ? at : now;
+            long ahead = start - now;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            if (full.compareAndSet(at, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL)) {
+            return;
+        }
+        // A token taken from a bucket as it goes is forgotten: at worst one extra request
+        buckets.values().removeIf(full -> full.get() - now <= 0);
+    }
+}
@@ -0,0 +1,28 @@
+package edu.trincoll.tracker;
+
+/**
+ * A movie's rating in one byte, as the columnar store and the snapshot file both keep it.
+ * Ratings that would read back as another value are refused rather than wrapped.
+ */
+final class RatingByte {
+
+    // No rating; valid ratings are never negative
+    static final byte NONE = -1;
+
+    private RatingByte() {
+    }
+
+    static byte encode(Integer rating) {
+        if (rating == null) {
+            return NONE;
+        }
+        if (rating < 0 || rating > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Rating " + rating + " does not fit in a byte");
+        }
+        return rating.byteValue();
+    }
+
+    static Integer decode(byte rating) {
+        return rating == NONE ? null : Integer.valueOf(rating);
+    }
+}
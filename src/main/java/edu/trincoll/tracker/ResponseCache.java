@@ -0,0 +1,245 @@
+package edu.trincoll.tracker;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Serialized {@code GET /api/movies/{id}} bodies with their ETags, plus a catalog version for
+ * validating list responses. The same ETags guard conditional PUT and DELETE.
+ * <p>
+ * Reads are a {@link ConcurrentHashMap} lookup and take no lock. Past its bound the cache
+ * evicts with CLOCK: a read marks its entry, and the hand sweeping the map on fills spares a
+ * marked entry once, so entries read since the last sweep stay.
+ * <p>
+ * Every write drops that movie's entry. A fill is gated on the movie's own version: it is
+ * installed, then the movie is read back from the store, and the fill removes itself if a
+ * write got there first. Either the fill sees the write, or the write's invalidation comes
+ * after the install, so a stale body never stays, and writes to other movies don't void it.
+ */
+final class ResponseCache implements MovieIndex {
+
+    /**
+     * A cached JSON body, its strong ETag, the movie version it renders, and the 200 and 304
+     * responses carrying them. The responses are immutable, so every hit returns the same one
+     * and a cached GET allocates nothing.
+     */
+    record Entry(byte[] body, String etag, long version, ResponseEntity<byte[]> response,
+                 ResponseEntity<byte[]> notModified) {
+
+        Entry(byte[] body, String etag, long version) {
+            this(body, etag, version,
+                    new ResponseEntity<>(body, headers(etag, MediaType.APPLICATION_JSON_VALUE), HttpStatus.OK),
+                    new ResponseEntity<>(headers(etag, null), HttpStatus.NOT_MODIFIED));
+        }
+    }
+
+    // An entry and its CLOCK mark
+    private static final class Slot {
+
+        final Entry entry;
+        volatile boolean referenced;
+
+        Slot(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    private final Map<Long, Slot> entries = new ConcurrentHashMap<>();
+    private final int capacity;
+    // Reads the stored movie back, to check a fill against it
+    private final LongFunction<Movie> movies;
+    // Bumped by every write; only list ETags use it
+    private final AtomicLong version = new AtomicLong();
+    // Tells list ETags from before a restart apart, since the version starts over
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    // The CLOCK hand; fills that push past the bound take turns moving it
+    private final Object handLock = new Object();
+    private Iterator<Map.Entry<Long, Slot>> hand = Collections.emptyIterator();
+
+    /**
+     * @param maxEntries bound on cached bodies; 0 keeps nothing but still computes ETags
+     * @param movies     the stored movie by id, or null
+     */
+    ResponseCache(int maxEntries, LongFunction<Movie> movies) {
+        this.capacity = maxEntries;
+        this.movies = movies;
+    }
+
+    /** The cached entry for this movie, or null. */
+    Entry get(long id) {
+        Slot slot = entries.get(id);
+        if (slot == null) {
+            return null;
+        }
+        // Only write the mark when it changes, so hits don't keep dirtying the cache line
+        if (!slot.referenced) {
+            slot.referenced = true;
+        }
+        return slot.entry;
+    }
+
+    /**
+     * Caches {@code body} as the rendering of {@code loaded}, unless the store has moved past
+     * that version by the time it is installed. Returns the entry either way.
+     */
+    Entry put(Movie loaded, byte[] body) {
+        Entry entry = new Entry(body, etag(body), loaded.getVersion());
+        if (capacity == 0) {
+            return entry;
+        }
+        long id = loaded.getId();
+        Slot slot = new Slot(entry);
+        // Never replace a newer rendering with an older one
+        entries.merge(id, slot, (present, mine) -> present.entry.version() >= mine.entry.version() ? present : mine);
+        Movie current = movies.apply(id);
+        if (current == null || current.getVersion() != loaded.getVersion()) {
+            entries.remove(id, slot);
+        } else if (entries.size() > capacity) {
+            evict();
+        }
+        return entry;
+    }
+
+    long version() {
+        return version.get();
+    }
+
+    /**
+     * Weak ETag for any list response built entirely at {@code version}. Weak because it names
+     * the catalog state, not the bytes: the same tag covers every format and gzip, which Tomcat
+     * only applies to responses without a strong ETag. Lists take no If-Match, so nothing needs
+     * a strong comparison.
+     */
+    String listTag(long version) {
+        return "W/\"" + epoch + "." + Long.toHexString(version) + "\"";
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void added(Movie movie) {
+        changed(movie.getId());
+    }
+
+    @Override
+    public void removed(Movie movie) {
+        changed(movie.getId());
+    }
+
+    @Override
+    public void replaced(Movie old, Movie updated) {
+        changed(updated.getId());
+    }
+
+    @Override
+    public void clear() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    private void changed(long id) {
+        version.incrementAndGet();
+        entries.remove(id);
+    }
+
+    // Sweeps until back under the bound, unmarking read entries and dropping unread ones
+    private void evict() {
+        synchronized (handLock) {
+            while (entries.size() > capacity) {
+                if (!hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<Long, Slot> candidate = hand.next();
+                Slot slot = candidate.getValue();
+                if (slot.referenced) {
+                    slot.referenced = false;
+                } else {
+                    entries.remove(candidate.getKey(), slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether an If-None-Match header matches {@code etag}: "*" or any listed tag,
+     * ignoring weak prefixes on either side as RFC 9110 asks for this comparison.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && anyMatches(ifNoneMatch, etag, etag.startsWith("W/") ? 2 : 0, true);
+    }
+
+    /**
+     * Whether an If-Match header admits {@code etag}: "*" or any listed tag, compared strongly,
+     * so a weak tag never matches.
+     */
+    static boolean matchesStrong(String ifMatch, String etag) {
+        return anyMatches(ifMatch, etag, 0, false);
+    }
+
+    // Walks the comma-separated tags in place; conditional requests are common enough not to split
+    private static boolean anyMatches(String header, String etag, int etagStart, boolean weak) {
+        int length = etag.length() - etagStart;
+        for (int start = 0; start <= header.length(); ) {
+            int comma = header.indexOf(',', start);
+            int end = comma < 0 ? header.length() : comma;
+            int from = start;
+            // Trimmed as String.trim() would
+            while (from < end && header.charAt(from) <= ' ') {
+                from++;
+            }
+            while (end > from && header.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (weak && header.startsWith("W/", from)) {
+                from += 2;
+            }
+            if (end - from == 1 && header.charAt(from) == '*'
+                    || end - from == length && header.regionMatches(from, etag, etagStart, length)) {
+                return true;
+            }
+            if (comma < 0) {
+                return false;
+            }
+            start = comma + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Read-only headers for a single-movie response; {@code contentType} is null on a 304, which
+     * carries no representation headers. Read-only, so a response takes them without a copy.
+     */
+    static HttpHeaders headers(String etag, String contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ETAG, etag);
+        if (contentType != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    // 64-bit FNV-1a of the body, so the tag changes whenever the bytes do
+    private static String etag(byte[] body) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : body) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,350 @@
+package edu.trincoll.tracker;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Field indexes behind the {@link MovieFilter} query on {@code GET /api/movies}.
+ * <p>
+ * Director is a hash index, year and rating are sorted indexes, and watched is a pair of
+ * bitmaps (watched and not). Every posting list knows its size, so a query can cheaply pick
+ * the most selective filter, walk only its ids and check the remaining filters per movie.
+ * <p>
+ * The rating index and a (createdAt, id) ordered set also serve {@link MovieSort} orders,
+ * so the first K movies of an order cost K steps rather than a sort of the catalog.
+ */
+final class SecondaryIndexes implements MovieIndex {
+
+    private final Map<String, IdSet> byDirector = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, IdSet> byYear = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, IdSet> byRating = new ConcurrentSkipListMap<>();
+    private final NavigableSet<Long> unrated = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Stamp> byCreatedAt = new ConcurrentSkipListSet<>();
+    private final Bitmap watched = new Bitmap();
+    private final Bitmap unwatched = new Bitmap();
+
+    @Override
+    public void added(Movie movie) {
+        long id = movie.getId();
+        IdSet.add(byDirector, movie.getDirector(), id);
+        IdSet.add(byYear, movie.getYear(), id);
+        IdSet.add(byRating, movie.getRating(), id);
+        if (movie.getRating() == null) {
+            unrated.add(id);
+        }
+        byCreatedAt.add(Stamp.of(movie));
+        (movie.isWatched() ? watched : unwatched).set(id);
+    }
+
+    @Override
+    public void removed(Movie movie) {
+        long id = movie.getId();
+        IdSet.remove(byDirector, movie.getDirector(), id);
+        IdSet.remove(byYear, movie.getYear(), id);
+        IdSet.remove(byRating, movie.getRating(), id);
+        if (movie.getRating() == null) {
+            unrated.remove(id);
+        }
+        byCreatedAt.remove(Stamp.of(movie));
+        (movie.isWatched() ? watched : unwatched).clear(id);
+    }
+
+    @Override
+    public void replaced(Movie old, Movie updated) {
+        long id = updated.getId();
+        // Only touch the fields that changed; add before remove so the id never drops out
+        if (!Objects.equals(old.getDirector(), updated.getDirector())) {
+            IdSet.add(byDirector, updated.getDirector(), id);
+            IdSet.remove(byDirector, old.getDirector(), id);
+        }
+        if (!Objects.equals(old.getYear(), updated.getYear())) {
+            IdSet.add(byYear, updated.getYear(), id);
+            IdSet.remove(byYear, old.getYear(), id);
+        }
+        if (!Objects.equals(old.getRating(), updated.getRating())) {
+            IdSet.add(byRating, updated.getRating(), id);
+            if (updated.getRating() == null) {
+                unrated.add(id);
+            }
+            IdSet.remove(byRating, old.getRating(), id);
+            if (old.getRating() == null) {
+                unrated.remove(id);
+            }
+        }
+        if (!Objects.equals(old.getCreatedAt(), updated.getCreatedAt())) {
+            byCreatedAt.add(Stamp.of(updated));
+            byCreatedAt.remove(Stamp.of(old));
+        }
+        if (old.isWatched() != updated.isWatched()) {
+            (updated.isWatched() ? watched : unwatched).set(id);
+            (old.isWatched() ? watched : unwatched).clear(id);
+        }
+    }
+
+    @Override
+    public void clear() {
+        byDirector.clear();
+        byYear.clear();
+        byRating.clear();
+        unrated.clear();
+        byCreatedAt.clear();
+        watched.clear();
+        unwatched.clear();
+    }
+
+    /**
+     * Ids that may match {@code filter}, ascending and greater than {@code afterId}.
+     * A superset of the matches: callers re-check each movie, since the indexes and the
+     * store are updated one after the other.
+     */
+    Iterable<Long> candidates(MovieFilter filter, long afterId) {
+        Iterable<Long> best = null;
+        long bestSize = Long.MAX_VALUE;
+
+        if (filter.director() != null) {
+            IdSet ids = byDirector.get(filter.director());
+            if (ids == null) {
+                return List.of();
+            }
+            best = ids.ids.tailSet(afterId, false);
+            bestSize = ids.size;
+        }
+        if (filter.hasYearRange()) {
+            int from = filter.yearFrom() == null ? Integer.MIN_VALUE : filter.yearFrom();
+            int to = filter.yearTo() == null ? Integer.MAX_VALUE : filter.yearTo();
+            if (from > to) {
+                return List.of();
+            }
+            Collection<IdSet> range = byYear.subMap(from, true, to, true).values();
+            long size = size(range);
+            if (size < bestSize) {
+                best = () -> merge(range, afterId);
+                bestSize = size;
+            }
+        }
+        if (filter.minRating() != null) {
+            Collection<IdSet> range = byRating.tailMap(filter.minRating(), true).values();
+            long size = size(range);
+            if (size < bestSize) {
+                best = () -> merge(range, afterId);
+                bestSize = size;
+            }
+        }
+        if (filter.watched() != null) {
+            Bitmap bits = filter.watched() ? watched : unwatched;
+            if (bits.count() < bestSize) {
+                best = bits.after(afterId);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Every id in {@code sort} order. Weakly consistent: a movie updated during the walk may
+     * be skipped, or seen under both its old and new position.
+     */
+    Iterator<Long> ordered(MovieSort sort) {
+        return switch (sort) {
+            case RATING -> concat(byRating.values(), unrated);
+            case RATING_DESC -> concat(byRating.descendingMap().values(), unrated);
+            case CREATED_AT -> byCreatedAt.stream().map(Stamp::id).iterator();
+            case CREATED_AT_DESC -> byCreatedAt.descendingSet().stream().map(Stamp::id).iterator();
+        };
+    }
+
+    // Walks each list in turn, then the trailing one, without copying any of them
+    private static Iterator<Long> concat(Collection<IdSet> lists, NavigableSet<Long> last) {
+        Iterator<IdSet> outer = lists.iterator();
+        return new Iterator<>() {
+            private Iterator<Long> inner = Collections.emptyIterator();
+            private boolean onLast;
+
+            @Override
+            public boolean hasNext() {
+                while (!inner.hasNext()) {
+                    if (outer.hasNext()) {
+                        inner = outer.next().ids.iterator();
+                    } else if (!onLast) {
+                        inner = last.iterator();
+                        onLast = true;
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return inner.next();
+            }
+        };
+    }
+
+    private static long size(Collection<IdSet> range) {
+        long size = 0;
+        for (IdSet ids : range) {
+            size += ids.size;
+        }
+        return size;
+    }
+
+    // A range spans several posting lists; merge their ids past the cursor lazily, so a page
+    // of K costs about K log(lists) steps rather than a copy and sort of the whole range
+    private static Iterator<Long> merge(Collection<IdSet> range, long afterId) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>();
+        for (IdSet set : range) {
+            new Cursor(set.ids.tailSet(afterId, false).iterator()).advanceInto(heads);
+        }
+        return new Iterator<>() {
+            private long last = afterId;
+
+            @Override
+            public boolean hasNext() {
+                // An update moving a movie within the range briefly lists it under both keys
+                while (!heads.isEmpty() && heads.peek().head <= last) {
+                    heads.poll().advanceInto(heads);
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Cursor first = heads.poll();
+                last = first.head;
+                first.advanceInto(heads);
+                return last;
+            }
+        };
+    }
+
+    // One posting list in a merge, ordered by the id it is waiting to hand out
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final Iterator<Long> rest;
+        private long head;
+
+        Cursor(Iterator<Long> rest) {
+            this.rest = rest;
+        }
+
+        // Moves to the next id and rejoins the queue, or drops out once the list is done
+        void advanceInto(PriorityQueue<Cursor> heads) {
+            if (rest.hasNext()) {
+                head = rest.next();
+                heads.add(this);
+            }
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(head, other.head);
+        }
+    }
+
+    // Sort key for the createdAt order; the id breaks ties and makes each key unique
+    private record Stamp(long millis, long id) implements Comparable<Stamp> {
+
+        static Stamp of(Movie movie) {
+            return new Stamp(MovieSort.createdMillis(movie), movie.getId());
+        }
+
+        @Override
+        public int compareTo(Stamp other) {
+            int c = Long.compare(millis, other.millis);
+            return c != 0 ? c : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Concurrent bitmap over ids, one 64-bit word per 64 ids. Words are kept once created,
+     * which costs at most a bit per id ever stored.
+     */
+    private static final class Bitmap {
+
+        private final NavigableMap<Long, AtomicLong> words = new ConcurrentSkipListMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+
+        void set(long id) {
+            long bit = 1L << id;
+            AtomicLong word = words.computeIfAbsent(id >>> 6, w -> new AtomicLong());
+            if ((word.getAndUpdate(v -> v | bit) & bit) == 0) {
+                count.incrementAndGet();
+            }
+        }
+
+        void clear(long id) {
+            long bit = 1L << id;
+            AtomicLong word = words.get(id >>> 6);
+            if (word != null && (word.getAndUpdate(v -> v & ~bit) & bit) != 0) {
+                count.decrementAndGet();
+            }
+        }
+
+        int count() {
+            return count.get();
+        }
+
+        void clear() {
+            words.clear();
+            count.set(0);
+        }
+
+        // Set ids greater than afterId, ascending
+        Iterable<Long> after(long afterId) {
+            long first = afterId < 0 ? 0 : afterId + 1;
+            if (first < 0) {
+                return List.of();
+            }
+            return () -> new Iterator<>() {
+                private final Iterator<Map.Entry<Long, AtomicLong>> it =
+                        words.tailMap(first >>> 6, true).entrySet().iterator();
+                private long base;
+                private long bits;
+
+                @Override
+                public boolean hasNext() {
+                    while (bits == 0 && it.hasNext()) {
+                        Map.Entry<Long, AtomicLong> word = it.next();
+                        base = word.getKey() << 6;
+                        bits = word.getValue().get();
+                        if (word.getKey() == first >>> 6) {
+                            // Drop the ids before the cursor in its own word
+                            bits &= -1L << first;
+                        }
+                    }
+                    return bits != 0;
+                }
+
+                @Override
+                public Long next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    long id = base + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    return id;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.trincoll.tracker;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores movie objects as-is in a {@link ConcurrentSkipListMap}. Reads are lock-free and
+ * return the stored instance.
+ */
+final class SkipListMovieRepository implements MovieRepository {
+
+    private final ConcurrentNavigableMap<Long, Movie> movies = new ConcurrentSkipListMap<>();
+    // The map's own size() walks every entry
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public Movie get(long id) {
+        return movies.get(id);
+    }
+
+    @Override
+    public void put(Movie movie) {
+        if (movies.put(movie.getId(), movie) == null) {
+            size.incrementAndGet();
+        }
+    }
+
+    @Override
+    public Movie remove(long id) {
+        Movie removed = movies.remove(id);
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public Iterable<Movie> after(long afterId) {
+        return movies.tailMap(afterId, false).values();
+    }
+
+    @Override
+    public void clear() {
+        movies.clear();
+        size.set(0);
+    }
+}
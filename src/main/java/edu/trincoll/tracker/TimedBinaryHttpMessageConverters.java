@@ -0,0 +1,63 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Spring MVC's Smile and CBOR converters, timed like {@link TimedJsonHttpMessageConverter} and
+ * built from the application's JSON mapper, so every format writes dates and nulls the same way.
+ */
+final class TimedBinaryHttpMessageConverters {
+
+    private TimedBinaryHttpMessageConverters() {
+    }
+
+    static final class Smile extends MappingJackson2SmileHttpMessageConverter {
+
+        private final MovieMetrics metrics;
+
+        Smile(ObjectMapper json, MovieMetrics metrics) {
+            super(WireFormat.SMILE.mapper(json));
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            long start = System.nanoTime();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                metrics.responseSerialized(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static final class Cbor extends MappingJackson2CborHttpMessageConverter {
+
+        private final MovieMetrics metrics;
+
+        Cbor(ObjectMapper json, MovieMetrics metrics) {
+            super(WireFormat.CBOR.mapper(json));
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            long start = System.nanoTime();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                metrics.responseSerialized(System.nanoTime() - start);
+            }
+        }
+    }
+}
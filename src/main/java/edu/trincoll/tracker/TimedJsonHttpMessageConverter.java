@@ -0,0 +1,35 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Spring MVC's JSON converter, timing each body it writes as {@code movies.serialize{body=response}}.
+ * Replaces Boot's default converter bean, so lists, reports and stats are all covered.
+ */
+class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final MovieMetrics metrics;
+
+    TimedJsonHttpMessageConverter(ObjectMapper objectMapper, MovieMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            metrics.responseSerialized(System.nanoTime() - start);
+        }
+    }
+}
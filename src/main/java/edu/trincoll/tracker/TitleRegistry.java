@@ -0,0 +1,183 @@
+package edu.trincoll.tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Title -> id reservations that keep titles unique, across every node of a cluster.
+ * <p>
+ * Each title is held by the node it hashes to. A reservation for a title held elsewhere is a
+ * call to that node's {@code /internal/titles}, so two nodes can't both win the same title.
+ * With clustering off every title is held here, in one map.
+ * <p>
+ * Reservations are rebuilt from the movies themselves, not persisted: on startup a node pushes
+ * its recovered titles to their holders and pulls the titles it holds from the other nodes,
+ * so whichever of two nodes starts second brings both up to date.
+ */
+@Component
+public class TitleRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TitleRegistry.class);
+
+    // Titles per call when a node pushes its recovered titles to their holders
+    static final int RECOVERY_BATCH = 10_000;
+
+    private final Map<String, Long> held = new ConcurrentHashMap<>();
+    private final MovieCluster cluster;
+    private final ObjectMapper mapper;
+
+    public TitleRegistry(MovieCluster cluster, ObjectMapper mapper) {
+        this.cluster = cluster;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Reserves {@code title} for {@code id} unless another id holds it.
+     *
+     * @return null if the title was free, otherwise the id holding it (which may be {@code id})
+     */
+    Long reserve(String title, long id) {
+        int holder = cluster.ownerOf(title);
+        if (holder == cluster.self()) {
+            return held.putIfAbsent(title, id);
+        }
+        MovieCluster.Reply reply = cluster.call(holder, "POST", path(title, id), Map.of(), null);
+        try {
+            return mapper.readValue(reply.body(), ClusterController.Reservation.class).holder();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Frees {@code title} if {@code id} still holds it. Never fails: the movie is already gone
+     * when this runs, so a holder that can't be reached keeps the title until it restarts and
+     * rebuilds its reservations from the movies that exist.
+     */
+    void release(String title, long id) {
+        int holder = cluster.ownerOf(title);
+        if (holder == cluster.self()) {
+            held.remove(title, id);
+            return;
+        }
+        try {
+            cluster.call(holder, "DELETE", path(title, id), Map.of(), null);
+        } catch (MovieCluster.UnavailableException e) {
+            log.warn("Title '{}' stays reserved for movie {}: {}", title, id, e.getMessage());
+        }
+    }
+
+    /** This node's part of {@link #reserve}, for {@code POST /internal/titles}. */
+    Long reserveHere(String title, long id) {
+        return held.putIfAbsent(title, id);
+    }
+
+    /**
+     * This node's part of {@link #recover}, for {@code POST /internal/titles/batch}: reserves
+     * each title for its id, and returns the ones another id already holds, with that id.
+     */
+    Map<String, Long> reserveAllHere(Map<String, Long> reservations) {
+        Map<String, Long> taken = new HashMap<>();
+        reservations.forEach((title, id) -> {
+            Long holder = held.putIfAbsent(title, id);
+            if (holder != null && !holder.equals(id)) {
+                taken.put(title, holder);
+            }
+        });
+        return taken;
+    }
+
+    /** This node's part of {@link #release}, for {@code DELETE /internal/titles}. */
+    void releaseHere(String title, long id) {
+        held.remove(title, id);
+    }
+
+    /**
+     * Registers the titles of movies recovered from disk, then fetches the titles this node
+     * holds from the nodes that are up. Unreachable nodes are skipped: they push theirs here
+     * when they start.
+     */
+    void recover(Iterable<Movie> movies) {
+        // Titles held elsewhere go to their holder in batches, not one call per movie
+        Map<Integer, Map<String, Long>> byHolder = new HashMap<>();
+        for (Movie movie : movies) {
+            int holder = cluster.ownerOf(movie.getTitle());
+            if (holder == cluster.self()) {
+                Long id = reserveHere(movie.getTitle(), movie.getId());
+                if (id != null && id != movie.getId()) {
+                    warnTaken(movie.getTitle(), movie.getId(), id);
+                }
+            } else {
+                byHolder.computeIfAbsent(holder, h -> new HashMap<>()).put(movie.getTitle(), movie.getId());
+            }
+        }
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        Set<Integer> down = new HashSet<>();
+        byHolder.forEach((holder, reservations) -> {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(reservations.entrySet());
+            try {
+                for (int from = 0; from < entries.size(); from += RECOVERY_BATCH) {
+                    Map<String, Long> batch = new HashMap<>();
+                    entries.subList(from, Math.min(entries.size(), from + RECOVERY_BATCH))
+                            .forEach(entry -> batch.put(entry.getKey(), entry.getValue()));
+                    MovieCluster.Reply reply = cluster.call(holder, "POST", "/internal/titles/batch",
+                            Map.of("Content-Type", "application/json"), mapper.writeValueAsBytes(batch));
+                    Map<String, Long> taken = mapper.readValue(reply.body(), new TypeReference<>() { });
+                    taken.forEach((title, id) -> warnTaken(title, batch.get(title), id));
+                }
+            } catch (MovieCluster.UnavailableException e) {
+                down.add(holder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        for (int node = 0; node < cluster.size(); node++) {
+            if (node == cluster.self()) {
+                continue;
+            }
+            try {
+                MovieCluster.Reply reply = cluster.call(node, "GET",
+                        "/internal/titles?holder=" + cluster.self(), Map.of(), null);
+                Map<String, Long> titles = mapper.readValue(reply.body(), new TypeReference<>() { });
+                titles.forEach(held::putIfAbsent);
+            } catch (MovieCluster.UnavailableException e) {
+                down.add(node);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (!down.isEmpty()) {
+            log.info("Nodes {} are down; they exchange titles with this node when they start", down);
+        }
+    }
+
+    private static void warnTaken(String title, long id, long holder) {
+        log.warn("Title '{}' of movie {} is also held by movie {}", title, id, holder);
+    }
+
+    void clear() {
+        held.clear();
+    }
+
+    private static String path(String title, long id) {
+        return "/internal/titles?title=" + URLEncoder.encode(title, StandardCharsets.UTF_8) + "&id=" + id;
+    }
+}
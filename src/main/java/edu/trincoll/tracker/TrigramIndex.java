@@ -0,0 +1,126 @@
+package edu.trincoll.tracker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from title trigrams to movie ids.
+ * <p>
+ * Answers case-insensitive substring queries by intersecting the postings
+ * of every trigram in the query and verifying the survivors, so a search
+ * only touches movies that share the query's rarest trigram.
+ * Queries shorter than three characters fall back to a scan of the cached
+ * lowercase titles.
+ */
+final class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    // Trigram -> ids of titles containing it, kept in id order
+    private final Map<String, IdSet> postings = new ConcurrentHashMap<>();
+    // Id -> lowercase title, used to verify candidates without re-lowercasing
+    private final Map<Long, String> titles = new ConcurrentHashMap<>();
+
+    void add(long id, String title) {
+        String lower = normalize(title);
+        titles.put(id, lower);
+        for (String gram : grams(lower)) {
+            IdSet.add(postings, gram, id);
+        }
+    }
+
+    void remove(long id, String title) {
+        String lower = normalize(title);
+        titles.remove(id, lower);
+        for (String gram : grams(lower)) {
+            IdSet.remove(postings, gram, id);
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        titles.clear();
+    }
+
+    /**
+     * Returns the ids of titles containing {@code query} (case-insensitive), in id order.
+     */
+    List<Long> search(String query) {
+        String q = normalize(query);
+        if (q.length() < GRAM) {
+            return scan(q);
+        }
+
+        Set<String> grams = grams(q);
+        IdSet smallest = null;
+        List<NavigableSet<Long>> rest = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IdSet ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            // Drive the intersection from the shortest list
+            if (smallest == null || ids.size < smallest.size) {
+                if (smallest != null) {
+                    rest.add(smallest.ids);
+                }
+                smallest = ids;
+            } else {
+                rest.add(ids.ids);
+            }
+        }
+
+        List<Long> result = new ArrayList<>();
+        for (Long id : smallest.ids) {
+            if (containsAll(rest, id)) {
+                String title = titles.get(id);
+                // Trigrams match in any order; confirm the real substring
+                if (title != null && title.contains(q)) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Long> scan(String q) {
+        List<Long> result = new ArrayList<>();
+        titles.forEach((id, title) -> {
+            if (title.contains(q)) {
+                result.add(id);
+            }
+        });
+        result.sort(null);
+        return result;
+    }
+
+    private static boolean containsAll(List<NavigableSet<Long>> lists, Long id) {
+        for (NavigableSet<Long> ids : lists) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String lower) {
+        if (lower.length() < GRAM) {
+            return Set.of();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
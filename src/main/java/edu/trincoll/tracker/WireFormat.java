@@ -0,0 +1,146 @@
+package edu.trincoll.tracker;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.core.util.RecyclerPool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Body encodings the API speaks. Smile and CBOR are binary encodings of the same data model as
+ * JSON: no field-name or number formatting, shorter bodies, cheaper to write and parse. They
+ * are meant for service-to-service calls; JSON stays the default.
+ */
+enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON, null),
+    SMILE(MediaType.parseMediaType(MovieController.APPLICATION_SMILE_VALUE), "-smile\""),
+    CBOR(MediaType.APPLICATION_CBOR, "-cbor\"");
+
+    /**
+     * Buffers for every format's parsers and generators, shared by all threads: Jackson's default
+     * keeps them per thread, and a virtual thread per request never reuses one.
+     */
+    static final RecyclerPool<BufferRecycler> BUFFERS = JsonRecyclerPools.sharedBoundedPool();
+
+    private static final WireFormat[] FORMATS = values();
+
+    private final MediaType mediaType;
+    // Replaces the closing quote of the JSON body's ETag
+    private final String etagSuffix;
+
+    WireFormat(MediaType mediaType, String etagSuffix) {
+        this.mediaType = mediaType;
+        this.etagSuffix = etagSuffix;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * A mapper for this format with the modules and settings of {@code json}, which is returned
+     * as-is for JSON, drawing on {@link #BUFFERS}. {@code json} must be a plain ObjectMapper, as
+     * Boot builds it: format-specific mappers such as JsonMapper refuse to be copied onto another
+     * format.
+     */
+    ObjectMapper mapper(ObjectMapper json) {
+        return switch (this) {
+            case JSON -> json;
+            case SMILE -> json.copyWith(new SmileFactory().setRecyclerPool(BUFFERS));
+            case CBOR -> json.copyWith(new CBORFactory().setRecyclerPool(BUFFERS));
+        };
+    }
+
+    /**
+     * The strong ETag of a movie's body in this format, given {@code json}, the tag of its JSON
+     * body: the same tag for JSON, and a "-smile" or "-cbor" suffix inside the quotes otherwise,
+     * since the bytes differ while the movie is the same.
+     */
+    String etag(String json) {
+        return etagSuffix == null ? json : json.substring(0, json.length() - 1) + etagSuffix;
+    }
+
+    /**
+     * Whether an If-Match header names the movie whose JSON body is tagged {@code json}, by its
+     * tag in any format: each names the same state, which is all a precondition checks.
+     */
+    static boolean matchesAnyFormat(String ifMatch, String json) {
+        for (WireFormat format : FORMATS) {
+            if (ResponseCache.matchesStrong(ifMatch, format.etag(json))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The format a request body is in, from its Content-Type; JSON (or NDJSON) if absent or unknown. */
+    static WireFormat ofContentType(String contentType) {
+        if (contentType != null) {
+            try {
+                MediaType type = MediaType.parseMediaType(contentType);
+                for (WireFormat format : FORMATS) {
+                    if (format.mediaType.equalsTypeAndSubtype(type)) {
+                        return format;
+                    }
+                }
+            } catch (InvalidMediaTypeException e) {
+                // Spring rejects the request before a handler runs; fall through for direct calls
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * The format to answer in, from an Accept header: the one with the highest q-value, an
+     * explicit type over a wildcard, JSON for a bare wildcard or no header. A type with q=0 is
+     * one the client refuses, never picked.
+     */
+    static WireFormat accepted(String accept) {
+        // Wildcards pick JSON, so only a header naming smile or cbor needs parsing
+        if (accept == null || !containsIgnoreCase(accept, "smile") && !containsIgnoreCase(accept, "cbor")) {
+            return JSON;
+        }
+        WireFormat best = JSON;
+        double bestQuality = 0;
+        boolean bestByWildcard = true;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                double quality = type.getQualityValue();
+                if (quality == 0) {
+                    continue;
+                }
+                // An explicit type beats a wildcard of the same quality
+                boolean better = quality > bestQuality
+                        || quality == bestQuality && bestByWildcard && !type.isWildcardSubtype();
+                if (!better) {
+                    continue;
+                }
+                for (WireFormat format : FORMATS) {
+                    if (type.isCompatibleWith(format.mediaType)) {
+                        best = format;
+                        bestQuality = quality;
+                        bestByWildcard = type.isWildcardSubtype();
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        return best;
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        for (int i = 0; i + part.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,197 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs the API with tight limits: three requests per client and endpoint, with no refill
+ * during a test, and one scan at a time. Each test sends as its own client.
+ */
+@SpringBootTest(properties = {
+        "movies.admission.enabled=true",
+        "movies.admission.rate=0.001",
+        "movies.admission.burst=3",
+        "movies.admission.max-in-flight=1",
+        "movies.admission.client-header=X-Client"})
+@AutoConfigureMockMvc
+@DisplayName("Admission Control Tests")
+class AdmissionControlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovieController controller;
+
+    @Autowired
+    private AdmissionControl admission;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller.clearStore();
+        mockMvc.perform(post("/api/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Alien\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private double rejected(String endpoint, String reason) {
+        return registry.get("movies.admission.rejected")
+                .tag("endpoint", endpoint).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    @DisplayName("should answer 429 with Retry-After once a client spends its burst")
+    void shouldRateLimitPerClient() throws Exception {
+        double before = rejected("list", "rate");
+        for (int n = 0; n < 3; n++) {
+            mockMvc.perform(get("/api/movies").header("X-Client", "looper")).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/movies").header("X-Client", "looper"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        // Other clients, and the same client on another endpoint, have their own buckets
+        mockMvc.perform(get("/api/movies").header("X-Client", "bystander")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/movies/search").param("title", "alien").header("X-Client", "looper"))
+                .andExpect(status().isOk());
+        assertThat(rejected("list", "rate")).isEqualTo(before + 1);
+    }
+
+    @Test
+    @DisplayName("should never limit single-movie reads")
+    void shouldLeaveGetByIdAlone() throws Exception {
+        for (int n = 0; n < 20; n++) {
+            mockMvc.perform(get("/api/movies/{id}", 1).header("X-Client", "reader")).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @DisplayName("should answer 503 while too many scans are in flight, and admit again after")
+    void shouldShedLoadPastInFlightBound() throws Exception {
+        double before = rejected("search", "concurrency");
+        MockHttpServletRequest scan = new MockHttpServletRequest("GET", "/api/movies");
+        scan.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/movies");
+        scan.addHeader("X-Client", "holder");
+        MockHttpServletResponse held = new MockHttpServletResponse();
+        assertThat(admission.preHandle(scan, held, null)).isTrue();
+        assertThat(admission.inFlight()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/movies/search").param("title", "alien").header("X-Client", "shed"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        // Cheap endpoints don't count towards the bound or wait for it
+        mockMvc.perform(get("/api/movies/{id}", 1)).andExpect(status().isOk());
+
+        admission.afterCompletion(scan, held, null, null);
+        assertThat(admission.inFlight()).isZero();
+        mockMvc.perform(get("/api/movies/search").param("title", "alien").header("X-Client", "shed"))
+                .andExpect(status().isOk());
+        assertThat(rejected("search", "concurrency")).isEqualTo(before + 1);
+    }
+
+    @Test
+    @DisplayName("should hold an export's slot until it finishes streaming")
+    void shouldCountStreamingExports() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/movies/export").header("X-Client", "exporter"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(admission.inFlight()).isEqualTo(1);
+
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        assertThat(admission.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("should rate limit the node header like any client when clustering is off")
+    void shouldIgnorePeerHeaderOutsideCluster() throws Exception {
+        for (int n = 0; n < 3; n++) {
+            mockMvc.perform(get("/api/movies").header("X-Client", "forger").header(MovieCluster.LOCAL_HEADER, "true"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/movies").header("X-Client", "forger").header(MovieCluster.LOCAL_HEADER, "true"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("should skip the rate check for requests from other nodes")
+    void shouldTrustClusterPeers() throws Exception {
+        MovieTrackerProperties properties = new MovieTrackerProperties();
+        properties.getAdmission().setEnabled(true);
+        properties.getAdmission().setRate(0.001);
+        properties.getAdmission().setBurst(1);
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().setNodes(List.of(URI.create("http://localhost:1"), URI.create("http://localhost:2")));
+        properties.getCluster().setSecret("admission-test-secret");
+        MovieCluster cluster = new MovieCluster(properties);
+        AdmissionControl clustered = new AdmissionControl(properties, new SimpleMeterRegistry(), cluster);
+
+        for (int n = 0; n < 5; n++) {
+            MockHttpServletRequest peer = scan(cluster.signature("GET", "/api/movies"));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertThat(clustered.preHandle(peer, response, null)).isTrue();
+            clustered.afterCompletion(peer, response, null, null);
+        }
+        // An unsigned header is just another client, whose one request is spent
+        assertThat(clustered.preHandle(scan("true"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(clustered.preHandle(scan("true"), new MockHttpServletResponse(), null)).isFalse();
+    }
+
+    private static MockHttpServletRequest scan(String peerHeader) {
+        MockHttpServletRequest scan = new MockHttpServletRequest("GET", "/api/movies");
+        scan.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/movies");
+        if (peerHeader != null) {
+            scan.addHeader(MovieCluster.LOCAL_HEADER, peerHeader);
+        }
+        return scan;
+    }
+
+    @Test
+    @DisplayName("should admit every scan with the shipped defaults, which leave admission off")
+    void shouldBeOffByDefault() throws Exception {
+        MovieTrackerProperties properties = new MovieTrackerProperties();
+        AdmissionControl defaults = new AdmissionControl(properties, new SimpleMeterRegistry(),
+                new MovieCluster(properties));
+
+        for (int n = 0; n < 1_000; n++) {
+            MockHttpServletRequest scan = scan(null);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertThat(defaults.preHandle(scan, response, null)).isTrue();
+            defaults.afterCompletion(scan, response, null, null);
+        }
+    }
+
+    @Test
+    @DisplayName("should register every rejection counter and the in-flight gauge up front")
+    void shouldExposeMeters() {
+        assertThat(registry.get("movies.admission.rejected").counters()).hasSize(6);
+        assertThat(registry.get("movies.admission.in.flight").gauge().value()).isZero();
+    }
+}
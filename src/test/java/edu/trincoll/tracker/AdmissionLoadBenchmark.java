@@ -0,0 +1,113 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A few clients loop on full-catalog searches while many others read single movies, once
+ * without admission control and once with it, and compares the readers' latency.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Admission Load Benchmark")
+class AdmissionLoadBenchmark {
+
+    private static final int PRELOADED = 20_000;
+    private static final int ABUSERS = 16;
+    private static final int READERS = 64;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(10);
+
+    private record Result(String mode, Benchmarks.Samples latencies, long readerErrors,
+                          Map<Integer, Long> scanStatuses) {
+
+        void print() {
+            System.out.printf("%-10s getById %s   scans %s%n",
+                    mode, latencies.latencies(MEASURE.toNanos() / 1e9), scanStatuses);
+        }
+    }
+
+    @Test
+    @DisplayName("should keep single-movie reads fast while the catalog is being scanned in a loop")
+    void compareWithAndWithoutAdmission() throws Exception {
+        Result open = run(false);
+        Result guarded = run(true);
+
+        System.out.printf("%,d movies, %d clients looping on search, %d reading single movies%n",
+                PRELOADED, ABUSERS, READERS);
+        open.print();
+        guarded.print();
+        assertThat(open.readerErrors()).isZero();
+        assertThat(guarded.readerErrors()).isZero();
+    }
+
+    private Result run(boolean admission) throws Exception {
+        String mode = admission ? "admission" : "open";
+        // The limits are the defaults, spelled out to override the test properties
+        try (var context = Benchmarks.boot(
+                        "--movies.persistence.enabled=false",
+                        "--movies.admission.enabled=" + admission,
+                        "--movies.admission.rate=5",
+                        "--movies.admission.burst=10",
+                        "--movies.admission.max-in-flight=" + Runtime.getRuntime().availableProcessors());
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI base = URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/movies");
+            HttpRequest.Builder json = HttpRequest.newBuilder().header("Content-Type", "application/json");
+            for (int n = 1; n <= PRELOADED; n++) {
+                client.send(json.copy().uri(base).POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"title\":\"Scanned " + n + "\",\"director\":\"Director " + n % 100 + "\"}")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+            }
+
+            long warmEnd = System.nanoTime() + WARMUP.toNanos();
+            long end = warmEnd + MEASURE.toNanos();
+            Map<Integer, AtomicLong> scanStatuses = new ConcurrentHashMap<>();
+            // A substring every title has, so each search walks and sorts the whole catalog
+            HttpRequest scan = HttpRequest.newBuilder(base.resolve("movies/search?title=scanned")).build();
+            for (int a = 0; a < ABUSERS; a++) {
+                clients.submit(() -> {
+                    for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                        int status = client.send(scan, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (now >= warmEnd) {
+                            scanStatuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            AtomicLong readerErrors = new AtomicLong();
+            List<Future<long[]>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(Benchmarks.client(clients, warmEnd, end, () -> client.send(HttpRequest.newBuilder(
+                                base.resolve("movies/" + (1 + ThreadLocalRandom.current().nextInt(PRELOADED)))).build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode(), status -> status == 200, readerErrors));
+            }
+
+            Benchmarks.Samples latencies = Benchmarks.Samples.of(readers);
+            Map<Integer, Long> statuses = new TreeMap<>();
+            scanStatuses.forEach((status, count) -> statuses.put(status, count.get()));
+            return new Result(mode, latencies, readerErrors.get(), statuses);
+        }
+    }
+}
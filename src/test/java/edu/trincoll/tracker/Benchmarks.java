@@ -0,0 +1,105 @@
+package edu.trincoll.tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+/**
+ * What the {@code @Tag("benchmark")} tests share: booting the app for one run, clients that time
+ * their calls once the warmup is over, and percentiles of what they measured.
+ */
+final class Benchmarks {
+
+    /** One call a client makes, answering its HTTP status. */
+    @FunctionalInterface
+    interface Call {
+
+        int send() throws Exception;
+    }
+
+    /** Measurements, sorted, e.g. latencies in nanoseconds. */
+    record Samples(long[] sorted) {
+
+        static Samples of(long[] values) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return new Samples(sorted);
+        }
+
+        /** Everything the clients measured, once they have all finished. */
+        static Samples of(List<Future<long[]>> clients) throws Exception {
+            List<long[]> all = new ArrayList<>(clients.size());
+            for (Future<long[]> client : clients) {
+                all.add(client.get());
+            }
+            return new Samples(all.stream().flatMapToLong(Arrays::stream).sorted().toArray());
+        }
+
+        int count() {
+            return sorted.length;
+        }
+
+        long min() {
+            return sorted[0];
+        }
+
+        long percentile(double p) {
+            return sorted[(int) Math.max(0, Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1))];
+        }
+
+        /** Throughput over {@code seconds} and latency percentiles, for samples in nanoseconds. */
+        String latencies(double seconds) {
+            return String.format("%,9.0f req/s  p50 %6.2f ms  p99 %7.2f ms  p99.9 %7.2f ms",
+                    count() / seconds, percentile(0.50) / 1e6, percentile(0.99) / 1e6, percentile(0.999) / 1e6);
+        }
+    }
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Starts the app on a free port with INFO logging. {@code args} come last, so they win over
+     * application.yml and the test properties.
+     */
+    static ServletWebServerApplicationContext boot(String... args) {
+        String[] all = Stream.concat(Stream.of("--server.port=0", "--logging.level.edu.trincoll=INFO"),
+                Stream.of(args)).toArray(String[]::new);
+        return (ServletWebServerApplicationContext) new SpringApplicationBuilder(MovieTrackerApplication.class)
+                .run(all);
+    }
+
+    /**
+     * Starts a client that repeats {@code call} until {@code end} (a nanoTime), timing the calls
+     * that start at or after {@code warmEnd} and counting statuses {@code ok} refuses in
+     * {@code errors}. The future holds its latencies, unsorted.
+     */
+    static Future<long[]> client(ExecutorService clients, long warmEnd, long end, Call call, IntPredicate ok,
+                                 AtomicLong errors) {
+        return clients.submit(() -> {
+            long[] samples = new long[1024];
+            int count = 0;
+            for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                int status = call.send();
+                long done = System.nanoTime();
+                if (!ok.test(status)) {
+                    errors.incrementAndGet();
+                }
+                if (now >= warmEnd) {
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = done - now;
+                }
+            }
+            return Arrays.copyOf(samples, count);
+        });
+    }
+}
@@ -0,0 +1,223 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Change Feed Tests")
+class ChangeFeedTest {
+
+    private static final long NO_HEARTBEAT = TimeUnit.MINUTES.toMillis(10);
+
+    /** Records everything a subscription delivers, as "type:id" or "reset:head". */
+    private static final class Collector implements ChangeFeed.Sink {
+
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(ChangeFeed.Event event) {
+            received.add(event.type().name().toLowerCase() + ":" + event.id());
+        }
+
+        @Override
+        public void reset(long head) {
+            received.add("reset:" + head);
+        }
+
+        @Override
+        public void heartbeat() {
+            received.add("heartbeat");
+        }
+
+        String next() throws InterruptedException {
+            return received.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("should number changes in order and resume after any cursor")
+    void shouldReadInOrder() {
+        ChangeFeed feed = new ChangeFeed(16, NO_HEARTBEAT);
+        Movie alien = MovieJournalTest.movie(1, "Alien");
+        Movie renamed = MovieJournalTest.movie(1, "Alien (1979)");
+        feed.added(alien);
+        feed.added(MovieJournalTest.movie(2, "Heat"));
+        feed.replaced(alien, renamed);
+        feed.removed(renamed);
+
+        List<ChangeFeed.Event> all = feed.read(0, 100);
+        assertThat(all).extracting(ChangeFeed.Event::seq).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(all).extracting(ChangeFeed.Event::type).containsExactly(
+                ChangeFeed.Type.CREATE, ChangeFeed.Type.CREATE, ChangeFeed.Type.UPDATE, ChangeFeed.Type.DELETE);
+        assertThat(all.get(2).movie().getTitle()).isEqualTo("Alien (1979)");
+        assertThat(all.get(3).movie()).isNull();
+
+        assertThat(feed.read(2, 100)).extracting(ChangeFeed.Event::seq).containsExactly(3L, 4L);
+        assertThat(feed.read(0, 2)).extracting(ChangeFeed.Event::seq).containsExactly(1L, 2L);
+        assertThat(feed.read(4, 100)).isEmpty();
+        assertThat(feed.head()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("should report lost events once a cursor falls a full ring behind")
+    void shouldDetectOverflow() {
+        ChangeFeed feed = new ChangeFeed(4, NO_HEARTBEAT);
+        for (long id = 1; id <= 6; id++) {
+            feed.added(MovieJournalTest.movie(id, "Movie " + id));
+        }
+
+        assertThat(feed.read(0, 100)).isNull();
+        assertThat(feed.read(1, 100)).isNull();
+        assertThat(feed.read(2, 100)).extracting(ChangeFeed.Event::id).containsExactly(3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    @DisplayName("should keep numbering past a clear and reject older cursors")
+    void shouldKeepNumberingAcrossClear() {
+        ChangeFeed feed = new ChangeFeed(16, NO_HEARTBEAT);
+        feed.added(MovieJournalTest.movie(1, "Alien"));
+        feed.added(MovieJournalTest.movie(2, "Heat"));
+        feed.clear();
+
+        assertThat(feed.read(0, 100)).isNull();
+        assertThat(feed.read(2, 100)).isEmpty();
+
+        feed.added(MovieJournalTest.movie(1, "Arrival"));
+        assertThat(feed.read(2, 100)).extracting(ChangeFeed.Event::seq).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("should only accept cursors of this run")
+    void shouldTagCursorsWithEpoch() {
+        ChangeFeed feed = new ChangeFeed(16, NO_HEARTBEAT);
+        feed.added(MovieJournalTest.movie(1, "Alien"));
+        feed.added(MovieJournalTest.movie(2, "Heat"));
+
+        String cursor = feed.cursor(1);
+        assertThat(cursor).contains(".").endsWith(".1");
+        assertThat(feed.seqOf(cursor)).isEqualTo(1);
+        assertThat(feed.read(feed.seqOf(cursor), 100)).extracting(ChangeFeed.Event::id).containsExactly(2L);
+
+        // Another run's cursor, a bare number and garbage all read as lost
+        for (String foreign : List.of("1.1", "1", cursor + "x", "")) {
+            assertThat(feed.seqOf(foreign)).isEqualTo(-1);
+            assertThat(feed.read(feed.seqOf(foreign), 100)).isNull();
+        }
+        // So does one this run never reached
+        assertThat(feed.read(5, 100)).isNull();
+    }
+
+    @Test
+    @DisplayName("should push backlog and live changes to a subscriber")
+    void shouldStreamToSubscriber() throws Exception {
+        ChangeFeed feed = new ChangeFeed(16, NO_HEARTBEAT);
+        feed.added(MovieJournalTest.movie(1, "Alien"));
+        feed.added(MovieJournalTest.movie(2, "Heat"));
+
+        Collector sink = new Collector();
+        Thread subscriber = feed.subscribe(1, sink);
+        try {
+            assertThat(sink.next()).isEqualTo("create:2");
+            feed.removed(MovieJournalTest.movie(1, "Alien"));
+            assertThat(sink.next()).isEqualTo("delete:1");
+        } finally {
+            subscriber.interrupt();
+            subscriber.join(5_000);
+        }
+        assertThat(subscriber.isAlive()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should reset a subscriber whose cursor is gone, then continue live")
+    void shouldResetLostSubscriber() throws Exception {
+        ChangeFeed feed = new ChangeFeed(4, NO_HEARTBEAT);
+        for (long id = 1; id <= 10; id++) {
+            feed.added(MovieJournalTest.movie(id, "Movie " + id));
+        }
+
+        Collector sink = new Collector();
+        Thread subscriber = feed.subscribe(0, sink);
+        try {
+            assertThat(sink.next()).isEqualTo("reset:10");
+            feed.added(MovieJournalTest.movie(11, "Movie 11"));
+            assertThat(sink.next()).isEqualTo("create:11");
+        } finally {
+            subscriber.interrupt();
+            subscriber.join(5_000);
+        }
+    }
+
+    @Test
+    @DisplayName("should send heartbeats while idle")
+    void shouldHeartbeatWhileIdle() throws Exception {
+        ChangeFeed feed = new ChangeFeed(16, 20);
+        Collector sink = new Collector();
+        Thread subscriber = feed.subscribe(0, sink);
+        try {
+            assertThat(sink.next()).isEqualTo("heartbeat");
+        } finally {
+            subscriber.interrupt();
+            subscriber.join(5_000);
+        }
+    }
+
+    @Test
+    @DisplayName("should refuse a heartbeat interval that is not positive")
+    void shouldRequirePositiveHeartbeat() {
+        assertThatThrownBy(() -> new ChangeFeed(16, 0)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("movies.changes.heartbeat");
+        assertThatThrownBy(() -> new ChangeFeed(16, -15_000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("should never block writers on a stalled subscriber")
+    void shouldNotBlockWriters() throws Exception {
+        ChangeFeed feed = new ChangeFeed(64, NO_HEARTBEAT);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread subscriber = feed.subscribe(0, new ChangeFeed.Sink() {
+            @Override
+            public void send(ChangeFeed.Event event) throws IOException {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void reset(long head) {
+            }
+
+            @Override
+            public void heartbeat() {
+            }
+        });
+        try {
+            feed.added(MovieJournalTest.movie(1, "Alien"));
+            assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Far more writes than the ring holds, while the only reader is stuck in send
+            long start = System.nanoTime();
+            for (long id = 2; id <= 10_000; id++) {
+                feed.added(MovieJournalTest.movie(id, "Movie " + id));
+            }
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(5);
+            assertThat(feed.head()).isEqualTo(10_000);
+        } finally {
+            release.countDown();
+            subscriber.interrupt();
+            subscriber.join(5_000);
+        }
+    }
+}
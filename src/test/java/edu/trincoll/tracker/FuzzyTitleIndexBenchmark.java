@@ -0,0 +1,107 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Times misspelled-title queries on catalogs up to a few million movies, against a realistic
+ * vocabulary that stops growing long before the catalog does.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Fuzzy Title Index Benchmark")
+class FuzzyTitleIndexBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ra", "ten", "vo", "sha", "dri", "nel", "por", "qui", "zan", "bel", "tor", "ga", "fen"
+    };
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 2_000;
+
+    @Test
+    @DisplayName("fuzzy queries should stay in milliseconds as the catalog grows")
+    void queryCostStaysLow() {
+        Random random = new Random(42);
+        List<String> vocabulary = vocabulary(random);
+        int[] sizes = {10_000, 100_000, 1_000_000, 3_000_000};
+        double[] millisPerQuery = new double[sizes.length];
+
+        FuzzyTitleIndex index = new FuzzyTitleIndex();
+        int added = 0;
+        for (int s = 0; s < sizes.length; s++) {
+            for (; added < sizes[s]; added++) {
+                index.added(MovieJournalTest.movie(added + 1, title(random, vocabulary)));
+            }
+
+            // Two-word queries with one typo in each word
+            String[] queries = new String[QUERIES];
+            for (int q = 0; q < QUERIES; q++) {
+                queries[q] = typo(random, pick(random, vocabulary)) + " " + typo(random, pick(random, vocabulary));
+            }
+            for (String query : queries) {
+                index.search(query, FuzzyTitleIndex.MAX_EDITS, 20);
+            }
+            long matches = 0;
+            long start = System.nanoTime();
+            for (String query : queries) {
+                matches += index.search(query, FuzzyTitleIndex.MAX_EDITS, 20).size();
+            }
+            millisPerQuery[s] = (System.nanoTime() - start) / 1e6 / QUERIES;
+            System.out.printf("%,10d movies: %6.3f ms/query (%.1f matches)%n",
+                    sizes[s], millisPerQuery[s], matches / (double) QUERIES);
+        }
+
+        // 300x more movies over a fixed vocabulary: the tree walk stays put, postings grow slowly
+        assertThat(millisPerQuery[sizes.length - 1]).isLessThan(50.0);
+        assertThat(millisPerQuery[sizes.length - 1] / millisPerQuery[0]).isLessThan(30.0);
+    }
+
+    private static List<String> vocabulary(Random random) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < VOCABULARY) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        return List.copyOf(words);
+    }
+
+    // Zipf-ish: low indexes are far more common, like real title words
+    private static String pick(Random random, List<String> vocabulary) {
+        double u = random.nextDouble();
+        return vocabulary.get((int) (vocabulary.size() * u * u * u));
+    }
+
+    private static String title(Random random, List<String> vocabulary) {
+        int words = 1 + random.nextInt(4);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(pick(random, vocabulary));
+        }
+        return title.toString();
+    }
+
+    // One dropped, doubled or swapped letter
+    private static String typo(Random random, String word) {
+        int at = random.nextInt(word.length() - 1);
+        return switch (random.nextInt(3)) {
+            case 0 -> word.substring(0, at) + word.substring(at + 1);
+            case 1 -> word.substring(0, at) + word.charAt(at) + word.substring(at);
+            default -> word.substring(0, at) + word.charAt(at + 1) + word.charAt(at) + word.substring(at + 2);
+        };
+    }
+}
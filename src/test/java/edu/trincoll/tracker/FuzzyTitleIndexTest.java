@@ -0,0 +1,146 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Fuzzy Title Index Tests")
+class FuzzyTitleIndexTest {
+
+    private final FuzzyTitleIndex index = new FuzzyTitleIndex();
+
+    private void add(long id, String title) {
+        index.added(MovieJournalTest.movie(id, title));
+    }
+
+    @Test
+    @DisplayName("should compute bounded edit distances")
+    void shouldComputeDistance() {
+        assertThat(FuzzyTitleIndex.distance("kitten", "sitting", 10)).isEqualTo(3);
+        assertThat(FuzzyTitleIndex.distance("alien", "alien", 0)).isZero();
+        assertThat(FuzzyTitleIndex.distance("", "heat", 10)).isEqualTo(4);
+        // Past the limit only "more than limit" is known
+        assertThat(FuzzyTitleIndex.distance("kitten", "sitting", 1)).isEqualTo(2);
+        assertThat(FuzzyTitleIndex.distance("up", "interstellar", 2)).isEqualTo(3);
+        assertThat(FuzzyTitleIndex.distance("kitten", "sitting", Integer.MAX_VALUE)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should find misspelled titles, fewest edits first")
+    void shouldRankByEdits() {
+        add(1, "The Godfather");
+        add(2, "The Godfather Part II");
+        add(3, "Goodfellas");
+        add(4, "Godzilla");
+
+        assertThat(index.search("godfathr", 2, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("the godfahter part", 2, 10)).containsExactly(2L);
+        assertThat(index.search("goodfellas", 2, 10)).containsExactly(3L);
+        assertThat(index.search("GODZILA", 2, 10)).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("should prefer closer matches, then fewer unmatched title words, then lower ids")
+    void shouldBreakTies() {
+        add(5, "Heat");
+        add(1, "Heat Wave");
+        add(2, "Heats");
+        add(3, "Heat");
+
+        // heat: exact in 3 and 5 and 1 (one extra word), one edit in 2
+        assertThat(index.search("heat", 2, 10)).containsExactly(3L, 5L, 1L, 2L);
+        assertThat(index.search("heat", 2, 2)).containsExactly(3L, 5L);
+    }
+
+    @Test
+    @DisplayName("should allow fewer edits on short words")
+    void shouldScaleBudgetWithLength() {
+        add(1, "Up");
+        add(2, "Us");
+        add(3, "Jaws");
+        add(4, "Jams");
+
+        assertThat(FuzzyTitleIndex.budget("up", 2)).isZero();
+        assertThat(FuzzyTitleIndex.budget("jaws", 2)).isEqualTo(1);
+        assertThat(FuzzyTitleIndex.budget("godfather", 2)).isEqualTo(2);
+        assertThat(FuzzyTitleIndex.budget("godfather", 1)).isEqualTo(1);
+
+        assertThat(index.search("up", 2, 10)).containsExactly(1L);
+        assertThat(index.search("jaws", 2, 10)).containsExactly(3L, 4L);
+        assertThat(index.search("jaws", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("should forget removed and renamed titles")
+    void shouldFollowWrites() {
+        Movie alien = MovieJournalTest.movie(1, "Alien");
+        index.added(alien);
+        add(2, "Aliens");
+        index.replaced(alien, MovieJournalTest.movie(1, "Arrival"));
+
+        assertThat(index.search("alien", 1, 10)).containsExactly(2L);
+        assertThat(index.search("arival", 2, 10)).containsExactly(1L);
+
+        index.removed(MovieJournalTest.movie(2, "Aliens"));
+        assertThat(index.search("alien", 1, 10)).isEmpty();
+
+        index.clear();
+        assertThat(index.search("arrival", 2, 10)).isEmpty();
+        add(3, "Arrival");
+        assertThat(index.search("arrival", 2, 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("should touch only the words a retitle changes")
+    void shouldDiffRetitledWords() {
+        Movie wars = MovieJournalTest.movie(1, "Star Wars");
+        index.added(wars);
+        Movie rated = MovieJournalTest.movie(1, "Star Wars");
+        rated.setRating(8);
+        index.replaced(wars, rated);
+        assertThat(index.search("star wars", 0, 10)).containsExactly(1L);
+
+        index.replaced(rated, MovieJournalTest.movie(1, "Star Trek"));
+        assertThat(index.search("star", 0, 10)).containsExactly(1L);
+        assertThat(index.search("trek", 0, 10)).containsExactly(1L);
+        assertThat(index.search("wars", 0, 10)).isEmpty();
+
+        // The new title's words score the movie, not the old one's
+        assertThat(index.search("star wars", 0, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should find every word within the budget in a large vocabulary")
+    void shouldMatchBruteForce() {
+        String[] words = {"star", "stars", "start", "stare", "tsar", "scar", "spar", "sitar", "stir", "steer",
+                "store", "story", "stray", "strap", "star wars", "starling", "mars", "bars", "stab", "sta"};
+        for (int i = 0; i < words.length; i++) {
+            add(i + 1, words[i]);
+        }
+
+        for (String query : new String[]{"star", "stor", "straw", "sitars"}) {
+            for (int edits = 0; edits <= FuzzyTitleIndex.MAX_EDITS; edits++) {
+                int budget = FuzzyTitleIndex.budget(query, edits);
+                long expected = Arrays.stream(words)
+                        .filter(title -> Arrays.stream(title.split(" "))
+                                .anyMatch(w -> FuzzyTitleIndex.distance(query, w, budget) <= budget))
+                        .count();
+                assertThat(index.search(query, edits, 100)).as("%s within %d", query, edits).hasSize((int) expected);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should return nothing for empty or unmatched queries")
+    void shouldHandleNoMatch() {
+        add(1, "Alien");
+
+        assertThat(index.search("", 2, 10)).isEmpty();
+        assertThat(index.search("?!", 2, 10)).isEmpty();
+        assertThat(index.search("alien zzzzzz", 2, 10)).isEmpty();
+        assertThat(new FuzzyTitleIndex().search("alien", 2, 10)).isEmpty();
+    }
+}
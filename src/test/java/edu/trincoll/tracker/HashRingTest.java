@@ -0,0 +1,78 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Hash Ring Tests")
+class HashRingTest {
+
+    private static final List<String> THREE = List.of(
+            "http://node-a:8080", "http://node-b:8080", "http://node-c:8080");
+
+    @Test
+    @DisplayName("should spread consecutive ids evenly over the nodes")
+    void shouldBalanceIds() {
+        HashRing ring = new HashRing(THREE, 128);
+        int[] counts = new int[3];
+        int keys = 300_000;
+        for (long id = 1; id <= keys; id++) {
+            counts[ring.ownerOf(id)]++;
+        }
+        for (int count : counts) {
+            // 128 points per node keep every share within about 15% of a third
+            assertThat(count).isBetween((int) (keys / 3 * 0.85), (int) (keys / 3 * 1.15));
+        }
+    }
+
+    @Test
+    @DisplayName("should give the same owner for the same node list")
+    void shouldBeDeterministic() {
+        HashRing a = new HashRing(THREE, 64);
+        HashRing b = new HashRing(THREE, 64);
+        for (long id = 1; id <= 10_000; id++) {
+            assertThat(a.ownerOf(id)).isEqualTo(b.ownerOf(id));
+        }
+        assertThat(a.ownerOf("Alien")).isEqualTo(b.ownerOf("Alien"));
+        assertThat(a.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should move only the new node's share of keys when a node joins")
+    void shouldMoveFewKeysOnJoin() {
+        HashRing before = new HashRing(THREE, 128);
+        List<String> four = List.of(THREE.get(0), THREE.get(1), THREE.get(2), "http://node-d:8080");
+        HashRing after = new HashRing(four, 128);
+        int keys = 100_000;
+        int moved = 0;
+        for (long id = 1; id <= keys; id++) {
+            int owner = after.ownerOf(id);
+            if (owner != before.ownerOf(id)) {
+                // Keys only ever move to the new node
+                assertThat(owner).isEqualTo(3);
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(keys / 4 - keys / 20, keys / 4 + keys / 20);
+    }
+
+    @Test
+    @DisplayName("should send everything to a single node")
+    void shouldHandleOneNode() {
+        HashRing ring = new HashRing(List.of("http://only:8080"), 8);
+        assertThat(ring.ownerOf(Long.MAX_VALUE)).isZero();
+        assertThat(ring.ownerOf(-1L)).isZero();
+        assertThat(ring.ownerOf("")).isZero();
+    }
+
+    @Test
+    @DisplayName("should reject an empty ring")
+    void shouldRejectEmptyRing() {
+        assertThatThrownBy(() -> new HashRing(List.of(), 128)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HashRing(THREE, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
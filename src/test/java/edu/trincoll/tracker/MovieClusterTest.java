@@ -0,0 +1,338 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Three nodes in one JVM, each on its own port with its own in-memory shard. Every test uses
+ * its own titles, so the tests share the cluster without resetting it.
+ */
+@DisplayName("Movie Cluster Tests")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MovieClusterTest {
+
+    private static final int NODES = 3;
+    private static final String SECRET = "cluster-test-secret";
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final List<URI> nodes = new ArrayList<>();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    void startCluster() throws IOException {
+        StringJoiner list = new StringJoiner(",");
+        for (int node = 0; node < NODES; node++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                nodes.add(URI.create("http://localhost:" + socket.getLocalPort()));
+                list.add(nodes.get(node).toString());
+            }
+        }
+        for (int node = 0; node < NODES; node++) {
+            // As arguments, so they win over application.yml
+            contexts.add(new SpringApplicationBuilder(MovieTrackerApplication.class).run(
+                    "--server.port=" + nodes.get(node).getPort(),
+                    "--movies.persistence.enabled=false",
+                    "--movies.cluster.enabled=true",
+                    "--movies.cluster.nodes=" + list,
+                    "--movies.cluster.self=" + node,
+                    "--movies.cluster.secret=" + SECRET));
+        }
+    }
+
+    @AfterAll
+    void stopCluster() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    @DisplayName("should keep each movie on the node that created it and serve it from any node")
+    void shouldRouteSingleMovies() throws Exception {
+        for (int node = 0; node < NODES; node++) {
+            MovieCluster cluster = contexts.get(node).getBean(MovieCluster.class);
+            for (int n = 0; n < 5; n++) {
+                JsonNode created = create(node, "Routed " + node + "-" + n, "Routing");
+                assertThat(cluster.ownerOf(created.get("id").asLong())).isEqualTo(node);
+
+                for (int via = 0; via < NODES; via++) {
+                    HttpResponse<String> response = send(via, "GET", "/api/movies/" + created.get("id"), null);
+                    assertThat(response.statusCode()).isEqualTo(200);
+                    assertThat(mapper.readTree(response.body())).isEqualTo(created);
+                    assertThat(response.headers().firstValue("ETag")).isPresent();
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should list and page through the movies of every node in id order")
+    void shouldGatherLists() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int n = 0; n < 12; n++) {
+            ids.add(create(n % NODES, "Listed " + n, "Lister").get("id").asLong());
+        }
+        ids.sort(null);
+
+        JsonNode all = json(send(1, "GET", "/api/movies?director=Lister", null));
+        assertThat(ids(all)).containsExactlyElementsOf(ids);
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            HttpResponse<String> page = send(2, "GET",
+                    "/api/movies?director=Lister&limit=5" + (cursor == null ? "" : "&after=" + cursor), null);
+            assertThat(page.statusCode()).isEqualTo(200);
+            paged.addAll(ids(mapper.readTree(page.body())));
+            cursor = page.headers().firstValue(MovieController.NEXT_CURSOR_HEADER).orElse(null);
+        } while (cursor != null);
+        assertThat(paged).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    @DisplayName("should search the titles of every node")
+    void shouldGatherSearches() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (int n = 0; n < 6; n++) {
+            ids.add(create(n % NODES, "Gattaca Shard " + n, null).get("id").asLong());
+        }
+
+        JsonNode exact = json(send(0, "GET", "/api/movies/search?title=" + encode("gattaca shard"), null));
+        assertThat(ids(exact)).containsExactlyInAnyOrderElementsOf(ids);
+
+        JsonNode fuzzy = json(send(1, "GET", "/api/movies/search?fuzzy=true&title=" + encode("Gatacca Shard"), null));
+        // Equally close matches rank by id, as on a single node
+        assertThat(ids(fuzzy)).containsExactlyElementsOf(ids.stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("should reject a title taken on another node, and free it when the movie goes")
+    void shouldKeepTitlesUniqueAcrossNodes() throws Exception {
+        JsonNode heat = create(0, "Heat (clustered)", "Mann");
+        for (int node = 1; node < NODES; node++) {
+            assertThat(send(node, "POST", "/api/movies", movie("Heat (clustered)", null)).statusCode())
+                    .isEqualTo(409);
+        }
+        JsonNode other = create(2, "Thief (clustered)", "Mann");
+        assertThat(send(1, "PUT", "/api/movies/" + other.get("id"), movie("Heat (clustered)", "Mann")).statusCode())
+                .isEqualTo(409);
+
+        // Deleted through a node that doesn't own it
+        int elsewhere = (contexts.get(0).getBean(MovieCluster.class).ownerOf(heat.get("id").asLong()) + 1) % NODES;
+        assertThat(send(elsewhere, "DELETE", "/api/movies/" + heat.get("id"), null).statusCode()).isEqualTo(204);
+        assertThat(send(2, "GET", "/api/movies/" + heat.get("id"), null).statusCode()).isEqualTo(404);
+        assertThat(send(1, "POST", "/api/movies", movie("Heat (clustered)", null)).statusCode()).isEqualTo(201);
+    }
+
+    @Test
+    @DisplayName("should apply a batch patch to movies on every node")
+    void shouldPatchAcrossNodes() throws Exception {
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        for (int node = 0; node < NODES; node++) {
+            long id = create(node, "Patched " + node, null).get("id").asLong();
+            batch.add("{\"id\":" + id + ",\"version\":1,\"watched\":true}");
+        }
+        batch.add("{\"id\":999999999,\"watched\":true}");
+
+        JsonNode report = json(send(0, "PATCH", "/api/movies/batch", batch.toString()));
+        assertThat(report.get("updated").asInt()).isEqualTo(NODES);
+        for (int i = 0; i < NODES; i++) {
+            assertThat(report.get("items").get(i).get("status").asText()).isEqualTo("UPDATED");
+            assertThat(report.get("items").get(i).get("version").asLong()).isEqualTo(2);
+        }
+        assertThat(report.get("items").get(NODES).get("status").asText()).isEqualTo("NOT_FOUND");
+    }
+
+    @Test
+    @DisplayName("should add up the stats of every node")
+    void shouldGatherStats() throws Exception {
+        for (int node = 0; node < NODES; node++) {
+            create(node, "Counted " + node, "Counter");
+        }
+        long total = 0;
+        long director = 0;
+        for (int node = 0; node < NODES; node++) {
+            HttpResponse<String> local = send(node, "GET", "/api/movies/stats", null,
+                    MovieCluster.LOCAL_HEADER, cluster(node).signature("GET", "/api/movies/stats"));
+            JsonNode stats = mapper.readTree(local.body());
+            total += stats.get("total").asLong();
+            director += stats.get("byDirector").path("Counter").asLong();
+        }
+
+        JsonNode cluster = json(send(1, "GET", "/api/movies/stats", null));
+        assertThat(director).isEqualTo(NODES);
+        assertThat(cluster.get("byDirector").get("Counter").asLong()).isEqualTo(NODES);
+        assertThat(cluster.get("total").asLong()).isEqualTo(total);
+    }
+
+    @Test
+    @DisplayName("should export the movies of every node, each once")
+    void shouldGatherExports() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (int n = 0; n < 6; n++) {
+            ids.add(create(n % NODES, "Exported " + n, "Exporter").get("id").asLong());
+        }
+
+        HttpResponse<String> export = send(2, "GET", "/api/movies/export", null);
+        assertThat(export.statusCode()).isEqualTo(200);
+        List<Long> rows = new ArrayList<>();
+        Set<Long> exported = new HashSet<>();
+        for (String line : export.body().split("\n")) {
+            JsonNode movie = mapper.readTree(line);
+            rows.add(movie.get("id").asLong());
+            if ("Exporter".equals(movie.path("director").asText())) {
+                exported.add(movie.get("id").asLong());
+            }
+        }
+        assertThat(exported).isEqualTo(ids);
+        assertThat(rows).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("should refuse node headers and internal calls that another node didn't sign")
+    void shouldAuthenticatePeers() throws Exception {
+        String reserve = "/internal/titles?title=Forged&id=1";
+        assertThat(send(0, "POST", reserve, null).statusCode()).isEqualTo(403);
+        assertThat(send(0, "POST", reserve, null, MovieCluster.LOCAL_HEADER, "true").statusCode()).isEqualTo(403);
+        assertThat(send(0, "GET", "/api/movies/stats", null, MovieCluster.LOCAL_HEADER, "true").statusCode())
+                .isEqualTo(403);
+
+        // Signed for another request, signed with another secret, or signed too long ago
+        String stats = cluster(0).signature("GET", "/api/movies/stats");
+        assertThat(send(0, "POST", reserve, null, MovieCluster.LOCAL_HEADER, stats).statusCode()).isEqualTo(403);
+        MovieTrackerProperties other = new MovieTrackerProperties();
+        other.getCluster().setEnabled(true);
+        other.getCluster().setNodes(nodes);
+        other.getCluster().setSecret("not-" + SECRET);
+        assertThat(send(0, "POST", reserve, null,
+                MovieCluster.LOCAL_HEADER, new MovieCluster(other).signature("POST", reserve)).statusCode())
+                .isEqualTo(403);
+        String signed = cluster(0).signature("POST", reserve);
+        String stale = (Long.parseLong(signed.substring(0, signed.indexOf('.'))) - 2 * MovieCluster.MAX_SKEW.toSeconds())
+                + signed.substring(signed.indexOf('.'));
+        assertThat(send(0, "POST", reserve, null, MovieCluster.LOCAL_HEADER, stale).statusCode()).isEqualTo(403);
+
+        String held = "/internal/titles?holder=0";
+        assertThat(send(0, "GET", held, null, MovieCluster.LOCAL_HEADER, cluster(0).signature("GET", held))
+                .statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("should fail a title reservation that the holding node refuses, not take the title as free")
+    void shouldFailOnRejectedPeerCalls() {
+        MovieTrackerProperties forged = new MovieTrackerProperties();
+        forged.getCluster().setEnabled(true);
+        forged.getCluster().setNodes(nodes);
+        forged.getCluster().setSecret("not-" + SECRET);
+        MovieCluster impostor = new MovieCluster(forged);
+        TitleRegistry registry = new TitleRegistry(impostor, mapper);
+        String title = "Refused";
+        for (int n = 0; impostor.ownerOf(title) == impostor.self(); n++) {
+            title = "Refused " + n;
+        }
+        String taken = title;
+
+        assertThatThrownBy(() -> registry.reserve(taken, 1))
+                .isInstanceOf(MovieCluster.UnavailableException.class)
+                .hasRootCauseMessage("HTTP 403");
+    }
+
+    @Test
+    @DisplayName("should push recovered titles to the nodes that hold them, keeping titles taken meanwhile")
+    void shouldRecoverTitlesInBatches() throws Exception {
+        long taken = create(1, "Recovered Taken", "Recovery").get("id").asLong();
+        List<Movie> recovered = new ArrayList<>();
+        for (int n = 0; n < 30; n++) {
+            recovered.add(MovieJournalTest.movie(900_000 + n, "Recovered " + n));
+        }
+        Movie clash = MovieJournalTest.movie(900_100, "Recovered Taken");
+        recovered.add(clash);
+
+        contexts.get(0).getBean(TitleRegistry.class).recover(recovered);
+
+        for (Movie movie : recovered) {
+            int holder = cluster(0).ownerOf(movie.getTitle());
+            TitleRegistry titles = contexts.get(holder).getBean(TitleRegistry.class);
+            long expected = movie == clash ? taken : movie.getId();
+            assertThat(titles.reserveHere(movie.getTitle(), -1)).as(movie.getTitle()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("should refuse the change feed, which only sees one node's writes")
+    void shouldRefuseChangeFeed() throws Exception {
+        HttpResponse<String> poll = send(0, "GET", "/api/movies/changes?since=0", null);
+        assertThat(poll.statusCode()).isEqualTo(501);
+        assertThat(poll.body()).contains("clustering");
+        assertThat(send(1, "GET", "/api/movies/changes", null, "Accept", "text/event-stream").statusCode())
+                .isEqualTo(501);
+    }
+
+    private MovieCluster cluster(int node) {
+        return contexts.get(node).getBean(MovieCluster.class);
+    }
+
+    private JsonNode create(int node, String title, String director) throws Exception {
+        HttpResponse<String> response = send(node, "POST", "/api/movies", movie(title, director));
+        assertThat(response.statusCode()).isEqualTo(201);
+        return mapper.readTree(response.body());
+    }
+
+    private String movie(String title, String director) throws IOException {
+        JsonNode movie = mapper.createObjectNode().put("title", title).put("director", director).put("rating", 7);
+        return mapper.writeValueAsString(movie);
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws IOException {
+        assertThat(response.statusCode()).isEqualTo(200);
+        return mapper.readTree(response.body());
+    }
+
+    private static List<Long> ids(JsonNode movies) {
+        List<Long> ids = new ArrayList<>();
+        movies.forEach(movie -> ids.add(movie.get("id").asLong()));
+        return ids;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private HttpResponse<String> send(int node, String method, String path, String body, String... headers)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(nodes.get(node).resolve(path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
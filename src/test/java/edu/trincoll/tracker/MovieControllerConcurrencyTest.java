@@ -0,0 +1,165 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Hammers one movie with conditional updates from many threads while readers check that
+ * every movie they see is internally consistent.
+ */
+@SpringBootTest
+@DisplayName("Movie Controller Concurrency Tests")
+class MovieControllerConcurrencyTest {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int ATTEMPTS = 500;
+
+    @Autowired
+    private MovieController controller;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        controller.clearStore();
+    }
+
+    // Every write sets title, director and rating from the same n, so a mixed row is a torn read
+    private static Movie version(int n) {
+        Movie movie = new Movie();
+        movie.setTitle("Movie " + n);
+        movie.setDirector("Director " + n);
+        movie.setRating(n % 11);
+        movie.setYear(1900 + n % 200);
+        return movie;
+    }
+
+    private static boolean consistent(Movie movie) {
+        String n = movie.getTitle().substring("Movie ".length());
+        int i = Integer.parseInt(n);
+        return movie.getDirector().equals("Director " + n)
+                && movie.getRating() == i % 11
+                && movie.getYear() == 1900 + i % 200;
+    }
+
+    @Test
+    @DisplayName("should apply each If-Match update exactly once with no torn reads")
+    void shouldSerializeConditionalUpdates() throws Exception {
+        long id = controller.create(version(0)).getBody().getId();
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger torn = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+
+        List<CompletableFuture<Void>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(CompletableFuture.runAsync(() -> {
+                while (writing.get()) {
+                    try {
+                        Movie seen = objectMapper.readValue(controller.getById(id, null, null).getBody(), Movie.class);
+                        if (!consistent(seen)) {
+                            torn.incrementAndGet();
+                        }
+                        for (Movie listed : controller.getAll(null, null, null, MovieFilter.NONE, null).getBody()) {
+                            if (!consistent(listed)) {
+                                torn.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }, pool));
+        }
+
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 1; i <= ATTEMPTS; i++) {
+                    try {
+                        String etag = controller.getById(id, null, null).getHeaders().getETag();
+                        ResponseEntity<byte[]> result =
+                                controller.update(id, version(writer * ATTEMPTS + i), etag, null);
+                        if (result.getStatusCode() == HttpStatus.OK) {
+                            applied.incrementAndGet();
+                        } else {
+                            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+                            rejected.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }, pool));
+        }
+
+        CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).join();
+        writing.set(false);
+        CompletableFuture.allOf(readers.toArray(CompletableFuture[]::new)).join();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Movie last = objectMapper.readValue(controller.getById(id, null, null).getBody(), Movie.class);
+        assertThat(applied.get() + rejected.get()).isEqualTo(WRITERS * ATTEMPTS);
+        assertThat(applied.get()).isPositive();
+        // Every accepted update bumped the version once; none were lost or doubled
+        assertThat(last.getVersion()).isEqualTo(1L + applied.get());
+        assertThat(consistent(last)).isTrue();
+        assertThat(torn.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("should leave only the final title reserved after racing renames")
+    void shouldReleaseTitlesOfRacingRenames() throws Exception {
+        long id = controller.create(version(0)).getBody().getId();
+        int renames = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 1; i <= renames; i++) {
+                    try {
+                        // Unconditional, so a writer that loses the race retries rather than failing
+                        assertThat(controller.update(id, version(writer * renames + i), null, null).getStatusCode())
+                                .isEqualTo(HttpStatus.OK);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).join();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Movie last = objectMapper.readValue(controller.getById(id, null, null).getBody(), Movie.class);
+        assertThat(last.getVersion()).isEqualTo(1L + WRITERS * renames);
+        for (int n = 0; n <= WRITERS * renames; n++) {
+            HttpStatus expected = version(n).getTitle().equals(last.getTitle()) ? HttpStatus.CONFLICT : HttpStatus.CREATED;
+            assertThat(controller.create(version(n)).getStatusCode()).as("Movie %d", n).isEqualTo(expected);
+        }
+    }
+}
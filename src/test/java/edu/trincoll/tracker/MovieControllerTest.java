@@ -1,5 +1,7 @@
 package edu.trincoll.tracker;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,14 +13,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -33,12 +43,15 @@ class MovieControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private MovieController controller;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() throws Exception {
-        MovieController.clearStore();
+        controller.clearStore();
     }
 
     @Nested
@@ -73,6 +86,249 @@ class MovieControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/movies?limit&after")
+    class PageMovies {
+
+        @BeforeEach
+        void createMovies() throws Exception {
+            for (int i = 1; i <= 5; i++) {
+                Movie movie = new Movie();
+                movie.setTitle("Page Movie " + i);
+                mockMvc.perform(post("/api/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(movie)))
+                        .andExpect(status().isCreated());
+            }
+        }
+
+        @Test
+        @DisplayName("should walk the catalog in id order using the next cursor")
+        void shouldPageWithCursor() throws Exception {
+            String cursor = mockMvc.perform(get("/api/movies").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].title").value("Page Movie 1"))
+                    .andExpect(jsonPath("$[1].title").value("Page Movie 2"))
+                    .andReturn()
+                    .getResponse()
+                    .getHeader(MovieController.NEXT_CURSOR_HEADER);
+
+            mockMvc.perform(get("/api/movies").param("limit", "3").param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(3)))
+                    .andExpect(jsonPath("$[0].title").value("Page Movie 3"))
+                    .andExpect(header().doesNotExist(MovieController.NEXT_CURSOR_HEADER));
+        }
+
+        @Test
+        @DisplayName("should return 400 for an out-of-range limit")
+        void shouldRejectBadLimit() throws Exception {
+            mockMvc.perform(get("/api/movies").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/movies?director&yearFrom&yearTo&minRating&watched")
+    class FilterMovies {
+
+        @BeforeEach
+        void createMovies() throws Exception {
+            String[][] rows = {
+                    {"Memento", "Nolan", "2000", "8", "true"},
+                    {"Inception", "Nolan", "2010", "9", "false"},
+                    {"Tenet", "Nolan", "2020", "7", "false"},
+                    {"Arrival", "Villeneuve", "2016", "9", "true"},
+                    {"Dune", "Villeneuve", "2021", "8", "false"}
+            };
+            for (String[] row : rows) {
+                Movie movie = new Movie();
+                movie.setTitle(row[0]);
+                movie.setDirector(row[1]);
+                movie.setYear(Integer.parseInt(row[2]));
+                movie.setRating(Integer.parseInt(row[3]));
+                movie.setWatched(Boolean.parseBoolean(row[4]));
+                mockMvc.perform(post("/api/movies")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(movie)))
+                        .andExpect(status().isCreated());
+            }
+        }
+
+        @Test
+        @DisplayName("should combine filters with AND")
+        void shouldCombineFilters() throws Exception {
+            mockMvc.perform(get("/api/movies")
+                            .param("director", "Nolan")
+                            .param("yearFrom", "2005")
+                            .param("minRating", "8"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].title").value("Inception"));
+
+            mockMvc.perform(get("/api/movies")
+                            .param("watched", "false")
+                            .param("yearTo", "2020"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Inception", "Tenet")));
+        }
+
+        @Test
+        @DisplayName("should page filtered results with the next cursor")
+        void shouldPageFilteredResults() throws Exception {
+            String cursor = mockMvc.perform(get("/api/movies").param("minRating", "8").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Memento", "Inception")))
+                    .andReturn().getResponse().getHeader(MovieController.NEXT_CURSOR_HEADER);
+
+            mockMvc.perform(get("/api/movies").param("minRating", "8").param("limit", "2").param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Arrival", "Dune")))
+                    .andExpect(header().doesNotExist(MovieController.NEXT_CURSOR_HEADER));
+        }
+
+        @Test
+        @DisplayName("should reflect updates and deletes")
+        void shouldFollowWrites() throws Exception {
+            Movie tenet = new Movie();
+            tenet.setTitle("Tenet");
+            tenet.setDirector("Nolan");
+            tenet.setYear(2020);
+            tenet.setRating(9);
+            mockMvc.perform(put("/api/movies/{id}", 3)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(tenet)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/api/movies/{id}", 2))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/api/movies").param("director", "Nolan").param("minRating", "9"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Tenet")));
+        }
+
+        @Test
+        @DisplayName("should return the top movies by rating, unrated last")
+        void shouldSortByRating() throws Exception {
+            Movie unrated = new Movie();
+            unrated.setTitle("Following");
+            unrated.setDirector("Nolan");
+            mockMvc.perform(post("/api/movies")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(unrated)))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/api/movies").param("sort", "-rating").param("limit", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Inception", "Arrival", "Memento")));
+
+            mockMvc.perform(get("/api/movies").param("sort", "rating").param("director", "Nolan"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Tenet", "Memento", "Inception", "Following")));
+        }
+
+        @Test
+        @DisplayName("should return the most recently created movies first")
+        void shouldSortByCreatedAt() throws Exception {
+            mockMvc.perform(get("/api/movies").param("sort", "-createdAt").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Dune", "Arrival")));
+
+            mockMvc.perform(get("/api/movies").param("sort", "createdAt").param("limit", "1")
+                            .param("watched", "false"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Inception")));
+        }
+
+        @Test
+        @DisplayName("should return 400 for an unknown sort or a sort with after")
+        void shouldRejectBadSort() throws Exception {
+            mockMvc.perform(get("/api/movies").param("sort", "title"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/movies").param("sort", "rating").param("after", "2"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("should return 400 for a non-numeric year")
+        void shouldRejectBadYear() throws Exception {
+            mockMvc.perform(get("/api/movies").param("yearFrom", "soon"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/movies/stats")
+    class MovieStatistics {
+
+        @Test
+        @DisplayName("should aggregate the catalog and follow writes")
+        void shouldAggregate() throws Exception {
+            String[][] rows = {
+                    {"Memento", "Nolan", "2000", "8"},
+                    {"Inception", "Nolan", "2010", "9"},
+                    {"Arrival", "Villeneuve", "2016", "10"}
+            };
+            for (String[] row : rows) {
+                Movie movie = new Movie();
+                movie.setTitle(row[0]);
+                movie.setDirector(row[1]);
+                movie.setYear(Integer.parseInt(row[2]));
+                movie.setRating(Integer.parseInt(row[3]));
+                mockMvc.perform(post("/api/movies")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(movie)))
+                        .andExpect(status().isCreated());
+            }
+            mockMvc.perform(delete("/api/movies/{id}", 1))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/api/movies/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.watched").value(0))
+                    .andExpect(jsonPath("$.unwatched").value(2))
+                    .andExpect(jsonPath("$.averageRating").value(9.5))
+                    .andExpect(jsonPath("$.byDirector.Nolan").value(1))
+                    .andExpect(jsonPath("$.byDirector.Villeneuve").value(1))
+                    .andExpect(jsonPath("$.byDecade.2010s").value(2));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/movies/export")
+    class ExportMovies {
+
+        @Test
+        @DisplayName("should stream one JSON movie per line")
+        void shouldStreamNdjson() throws Exception {
+            for (String title : List.of("First", "Second")) {
+                Movie movie = new Movie();
+                movie.setTitle(title);
+                mockMvc.perform(post("/api/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(movie)))
+                        .andExpect(status().isCreated());
+            }
+
+            MvcResult started = mockMvc.perform(get("/api/movies/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MovieController.APPLICATION_NDJSON_VALUE))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(objectMapper.readValue(lines[0], Movie.class).getTitle()).isEqualTo("First");
+            assertThat(objectMapper.readValue(lines[1], Movie.class).getTitle()).isEqualTo("Second");
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/movies/{id}")
     class GetMovieById {
@@ -108,6 +364,126 @@ class MovieControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("ETag / If-None-Match")
+    class ConditionalGet {
+
+        private long createMovie(String title) throws Exception {
+            Movie movie = new Movie();
+            movie.setTitle(title);
+            String response = mockMvc.perform(post("/api/movies")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(movie)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readValue(response, Movie.class).getId();
+        }
+
+        @Test
+        @DisplayName("should return 304 for an unchanged movie and a new ETag after an update")
+        void shouldRevalidateMovie() throws Exception {
+            long id = createMovie("Heat");
+            String etag = mockMvc.perform(get("/api/movies/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title").value("Heat"))
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(etag).isNotBlank();
+
+            mockMvc.perform(get("/api/movies/{id}", id).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(""));
+
+            Movie update = new Movie();
+            update.setTitle("Heat (1995)");
+            mockMvc.perform(put("/api/movies/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(update)))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/api/movies/{id}", id).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title").value("Heat (1995)"));
+
+            mockMvc.perform(delete("/api/movies/{id}", id))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(get("/api/movies/{id}", id))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("should apply a PUT only when If-Match names the current version")
+        void shouldCheckIfMatch() throws Exception {
+            long id = createMovie("Heat");
+            String etag = mockMvc.perform(get("/api/movies/{id}", id))
+                    .andExpect(jsonPath("$.version").value(1))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            Movie first = new Movie();
+            first.setTitle("Heat");
+            first.setRating(9);
+            String next = mockMvc.perform(put("/api/movies/{id}", id)
+                            .header("If-Match", etag)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(first)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(2))
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(next).isNotEqualTo(etag);
+
+            // A second writer still holding the first ETag loses
+            Movie stale = new Movie();
+            stale.setTitle("Heat");
+            stale.setRating(2);
+            mockMvc.perform(put("/api/movies/{id}", id)
+                            .header("If-Match", etag)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(stale)))
+                    .andExpect(status().isPreconditionFailed());
+            mockMvc.perform(delete("/api/movies/{id}", id).header("If-Match", etag))
+                    .andExpect(status().isPreconditionFailed());
+
+            mockMvc.perform(get("/api/movies/{id}", id))
+                    .andExpect(header().string("ETag", next))
+                    .andExpect(jsonPath("$.rating").value(9));
+            mockMvc.perform(delete("/api/movies/{id}", id).header("If-Match", next))
+                    .andExpect(status().isNoContent());
+        }
+
+        @Test
+        @DisplayName("should return 304 for an unchanged list until the catalog changes")
+        void shouldRevalidateList() throws Exception {
+            createMovie("Heat");
+            String etag = mockMvc.perform(get("/api/movies"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/movies").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+
+            createMovie("Ronin");
+            mockMvc.perform(get("/api/movies").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)));
+        }
+
+        @Test
+        @DisplayName("should reject bad list parameters even with a matching If-None-Match")
+        void shouldValidateBeforeRevalidating() throws Exception {
+            createMovie("Heat");
+            String etag = mockMvc.perform(get("/api/movies"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/movies").param("limit", "0").header("If-None-Match", etag))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/movies").param("sort", "bogus").header("If-None-Match", etag))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/movies").param("sort", "rating").param("after", "1")
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     @DisplayName("POST /api/movies")
     class CreateMovie {
@@ -174,6 +550,197 @@ class MovieControllerTest {
                     .content(objectMapper.writeValueAsString(duplicateMovie)))
                     .andExpect(status().isConflict());
         }
+
+        @Test
+        @DisplayName("should give the next movie the id a rejected duplicate would have taken")
+        void shouldNotBurnIdsOnConflict() throws Exception {
+            mockMvc.perform(post("/api/movies")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"First\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(1));
+            mockMvc.perform(post("/api/movies")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"First\"}"))
+                    .andExpect(status().isConflict());
+
+            mockMvc.perform(post("/api/movies")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"Second\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(2));
+        }
+
+        @Test
+        @DisplayName("should return 400 for a rating or year out of range")
+        void shouldReturn400WhenOutOfRange() throws Exception {
+            for (String body : List.of("{\"title\":\"Too Good\",\"rating\":200}",
+                    "{\"title\":\"Too Bad\",\"rating\":-1}",
+                    "{\"title\":\"Too Early\",\"year\":1500}")) {
+                mockMvc.perform(post("/api/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                        .andExpect(status().isBadRequest());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /api/movies/batch")
+    class ImportMovies {
+
+        @Test
+        @DisplayName("should report each movie of a JSON array")
+        void shouldImportJsonArray() throws Exception {
+            Movie existing = new Movie();
+            existing.setTitle("Already Here");
+            mockMvc.perform(post("/api/movies")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(existing)))
+                    .andExpect(status().isCreated());
+
+            String batch = """
+                    [{"title":"One","year":1999},
+                     {"title":"","director":"Nobody"},
+                     {"title":"One"},
+                     {"title":"Already Here"},
+                     {"title":"Two","rating":11}]""";
+
+            mockMvc.perform(post("/api/movies/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(batch))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(1))
+                    .andExpect(jsonPath("$.rejected").value(4))
+                    .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                    .andExpect(jsonPath("$.items[1].status").value("INVALID"))
+                    .andExpect(jsonPath("$.items[2].status").value("DUPLICATE"))
+                    .andExpect(jsonPath("$.items[3].status").value("DUPLICATE"))
+                    .andExpect(jsonPath("$.items[4].status").value("INVALID"));
+
+            mockMvc.perform(get("/api/movies/search").param("title", "One"))
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].year").value(1999));
+        }
+
+        @Test
+        @DisplayName("should import an NDJSON stream")
+        void shouldImportNdjson() throws Exception {
+            String batch = """
+                    {"title":"Line One"}
+                    {"title":"Line Two"}
+                    """;
+
+            mockMvc.perform(post("/api/movies/batch")
+                    .contentType(MovieController.APPLICATION_NDJSON_VALUE)
+                    .content(batch))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(2))
+                    .andExpect(jsonPath("$.items[1].id").exists());
+
+            mockMvc.perform(get("/api/movies"))
+                    .andExpect(jsonPath("$", hasSize(2)));
+        }
+
+        @Test
+        @DisplayName("should return 400 when the body is not valid JSON")
+        void shouldRejectMalformedBody() throws Exception {
+            mockMvc.perform(post("/api/movies/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"title\":\"Fine\"}, {oops"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.created").value(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("PATCH /api/movies/{id} and /batch")
+    class PatchMovies {
+
+        @BeforeEach
+        void createMovies() throws Exception {
+            String batch = """
+                    [{"title":"Alien","director":"Scott","year":1979,"rating":8},
+                     {"title":"Aliens","director":"Cameron","year":1986}]""";
+            mockMvc.perform(post("/api/movies/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(batch))
+                    .andExpect(jsonPath("$.created").value(2));
+        }
+
+        @Test
+        @DisplayName("should change only the fields in the patch")
+        void shouldPatchFields() throws Exception {
+            mockMvc.perform(patch("/api/movies/{id}", 1)
+                            .contentType(MovieController.APPLICATION_MERGE_PATCH_JSON_VALUE)
+                            .content("{\"watched\":true,\"director\":null}"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andExpect(jsonPath("$.title").value("Alien"))
+                    .andExpect(jsonPath("$.year").value(1979))
+                    .andExpect(jsonPath("$.rating").value(8))
+                    .andExpect(jsonPath("$.watched").value(true))
+                    .andExpect(jsonPath("$.director").doesNotExist())
+                    .andExpect(jsonPath("$.version").value(2));
+
+            mockMvc.perform(get("/api/movies").param("watched", "true"))
+                    .andExpect(jsonPath("$[*].title").value(contains("Alien")));
+        }
+
+        @Test
+        @DisplayName("should reject bad patches, stale versions and duplicate titles")
+        void shouldRejectBadPatches() throws Exception {
+            mockMvc.perform(patch("/api/movies/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rating\":11}"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(patch("/api/movies/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ratng\":5}"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(patch("/api/movies/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rating\":5,\"version\":7}"))
+                    .andExpect(status().isPreconditionFailed());
+            mockMvc.perform(patch("/api/movies/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"Aliens\"}"))
+                    .andExpect(status().isConflict());
+            mockMvc.perform(patch("/api/movies/{id}", 99)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"watched\":true}"))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(get("/api/movies/{id}", 1))
+                    .andExpect(jsonPath("$.rating").value(8))
+                    .andExpect(jsonPath("$.version").value(1));
+        }
+
+        @Test
+        @DisplayName("should apply a batch entry by entry and report each")
+        void shouldPatchBatch() throws Exception {
+            String batch = """
+                    {"id":1,"watched":true}
+                    {"id":2,"rating":9,"version":1}
+                    {"id":2,"rating":3,"version":1}
+                    {"id":3,"watched":true}
+                    {"watched":true}
+                    """;
+            mockMvc.perform(patch("/api/movies/batch")
+                            .contentType(MovieController.APPLICATION_NDJSON_VALUE)
+                            .content(batch))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.updated").value(2))
+                    .andExpect(jsonPath("$.rejected").value(3))
+                    .andExpect(jsonPath("$.items[0].status").value("UPDATED"))
+                    .andExpect(jsonPath("$.items[1].version").value(2))
+                    .andExpect(jsonPath("$.items[2].status").value("VERSION_MISMATCH"))
+                    .andExpect(jsonPath("$.items[3].status").value("NOT_FOUND"))
+                    .andExpect(jsonPath("$.items[4].status").value("INVALID"));
+
+            mockMvc.perform(get("/api/movies/{id}", 2))
+                    .andExpect(jsonPath("$.rating").value(9));
+        }
     }
 
     @Nested
@@ -247,6 +814,82 @@ class MovieControllerTest {
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(invalidUpdate))
                     .andExpect(status().isBadRequest());
+
+            mockMvc.perform(put("/api/movies/{id}", createdMovie.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"Original Title\",\"rating\":200}"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("Title uniqueness")
+    class TitleUniqueness {
+
+        private Movie create(String title) throws Exception {
+            Movie movie = new Movie();
+            movie.setTitle(title);
+            String response = mockMvc.perform(post("/api/movies")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(movie)))
+                    .andExpect(status().isCreated())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            return objectMapper.readValue(response, Movie.class);
+        }
+
+        @Test
+        @DisplayName("should return 409 when renaming to another movie's title")
+        void shouldRejectRenameToTakenTitle() throws Exception {
+            create("Taken");
+            Movie other = create("Free");
+            other.setTitle("Taken");
+
+            mockMvc.perform(put("/api/movies/{id}", other.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(other)))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("should release the old title after a rename or delete")
+        void shouldReleaseTitles() throws Exception {
+            Movie renamed = create("Before");
+            renamed.setTitle("After");
+            mockMvc.perform(put("/api/movies/{id}", renamed.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(renamed)))
+                    .andExpect(status().isOk());
+            create("Before");
+
+            mockMvc.perform(delete("/api/movies/{id}", renamed.getId()))
+                    .andExpect(status().isNoContent());
+            create("After");
+        }
+
+        @Test
+        @DisplayName("should let exactly one of many concurrent POSTs claim a title")
+        void shouldAllowOneConcurrentWinner() throws Exception {
+            Movie movie = new Movie();
+            movie.setTitle("Race");
+            String json = objectMapper.writeValueAsString(movie);
+
+            List<Integer> statuses = IntStream.range(0, 16).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return mockMvc.perform(post("/api/movies")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(json))
+                                    .andReturn().getResponse().getStatus();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    })
+                    .toList();
+
+            assertThat(statuses).filteredOn(s -> s == 201).hasSize(1);
+            assertThat(statuses).filteredOn(s -> s == 409).hasSize(15);
         }
     }
 
@@ -327,5 +970,342 @@ class MovieControllerTest {
                     .andExpect(jsonPath("$[?(@.title == 'Apple')]").exists())
                     .andExpect(jsonPath("$[?(@.title == 'Application')]").exists());
         }
+
+        @Test
+        @DisplayName("should rank fuzzy matches by edit distance")
+        void shouldSearchFuzzy() throws Exception {
+            String batch = """
+                    [{"title":"Alien"},{"title":"Aliens"},{"title":"Alien Resurrection"},{"title":"Heat"}]""";
+            mockMvc.perform(post("/api/movies/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(batch))
+                    .andExpect(jsonPath("$.created").value(4));
+
+            mockMvc.perform(get("/api/movies/search").param("title", "Aliem"))
+                    .andExpect(jsonPath("$", hasSize(0)));
+
+            mockMvc.perform(get("/api/movies/search")
+                            .param("title", "Aliem")
+                            .param("fuzzy", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].title").value(contains("Alien", "Alien Resurrection")));
+
+            mockMvc.perform(get("/api/movies/search")
+                            .param("title", "alien resurection")
+                            .param("fuzzy", "true"))
+                    .andExpect(jsonPath("$[*].title").value(contains("Alien Resurrection")));
+        }
+
+        @Test
+        @DisplayName("should honour maxEdits and reject values out of range")
+        void shouldLimitEdits() throws Exception {
+            mockMvc.perform(post("/api/movies")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"Interstellar\"}"))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/api/movies/search")
+                            .param("title", "Intrestellar")
+                            .param("fuzzy", "true"))
+                    .andExpect(jsonPath("$[*].title").value(contains("Interstellar")));
+            mockMvc.perform(get("/api/movies/search")
+                            .param("title", "Intrestellar")
+                            .param("fuzzy", "true")
+                            .param("maxEdits", "1"))
+                    .andExpect(jsonPath("$", hasSize(0)));
+            mockMvc.perform(get("/api/movies/search")
+                            .param("title", "Interstellar")
+                            .param("fuzzy", "true")
+                            .param("maxEdits", "3"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/movies/changes")
+    class MovieChanges {
+
+        private String head() throws Exception {
+            // A cursor without this run's epoch reads as lost, so this answers 410 with the head
+            return mockMvc.perform(get("/api/movies/changes").param("since", "0")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isGone())
+                    .andReturn().getResponse().getHeader(MovieController.NEXT_CURSOR_HEADER);
+        }
+
+        private static long seq(String cursor) {
+            return Long.parseLong(cursor.substring(cursor.indexOf('.') + 1));
+        }
+
+        // The cursor n changes past the given one, in the same run
+        private static String plus(String cursor, int n) {
+            return cursor.substring(0, cursor.indexOf('.') + 1) + (seq(cursor) + n);
+        }
+
+        private void createMovie(String title) throws Exception {
+            mockMvc.perform(post("/api/movies")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"" + title + "\"}"))
+                    .andExpect(status().isCreated());
+        }
+
+        @Test
+        @DisplayName("should list changes after a cursor, oldest first")
+        void shouldPollChanges() throws Exception {
+            String since = head();
+            long first = seq(since) + 1;
+            createMovie("Alien");
+            mockMvc.perform(put("/api/movies/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"Alien (1979)\"}"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/api/movies/{id}", 1))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/api/movies/changes").param("since", since)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(MovieController.NEXT_CURSOR_HEADER, plus(since, 3)))
+                    .andExpect(jsonPath("$[*].type").value(contains("CREATE", "UPDATE", "DELETE")))
+                    .andExpect(jsonPath("$[*].seq").value(contains((int) first, (int) first + 1, (int) first + 2)))
+                    .andExpect(jsonPath("$[1].movie.title").value("Alien (1979)"))
+                    .andExpect(jsonPath("$[2].movie").doesNotExist());
+
+            mockMvc.perform(get("/api/movies/changes").param("since", plus(since, 3))
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("should answer 410 for a cursor from before a restart, or past the head")
+        void shouldRejectForeignCursors() throws Exception {
+            String head = head();
+            createMovie("Alien");
+            String otherRun = "1." + seq(head);
+
+            mockMvc.perform(get("/api/movies/changes").param("since", otherRun)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isGone())
+                    .andExpect(header().string(MovieController.NEXT_CURSOR_HEADER, plus(head, 1)));
+            mockMvc.perform(get("/api/movies/changes").param("since", plus(head, 5))
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isGone());
+        }
+
+        @Test
+        @DisplayName("should stream changes as server-sent events")
+        void shouldStreamChanges() throws Exception {
+            MvcResult started = mockMvc.perform(get("/api/movies/changes")
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            createMovie("Heat");
+
+            String body = "";
+            for (int i = 0; i < 100 && !body.contains("Heat"); i++) {
+                Thread.sleep(50);
+                body = started.getResponse().getContentAsString();
+            }
+            assertThat(body).contains("event:create").contains("\"title\":\"Heat\"")
+                    .contains("id:" + head());
+            started.getRequest().getAsyncContext().complete();
+        }
+
+        @Test
+        @DisplayName("should reset a stream resumed with an event id from before a restart")
+        void shouldResetForeignLastEventId() throws Exception {
+            String head = head();
+            MvcResult started = mockMvc.perform(get("/api/movies/changes")
+                            .header("Last-Event-ID", "1.3")
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = "";
+            for (int i = 0; i < 100 && !body.contains("reset"); i++) {
+                Thread.sleep(50);
+                body = started.getResponse().getContentAsString();
+            }
+            assertThat(body).contains("event:reset").contains("id:" + head);
+            started.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    @Nested
+    @DisplayName("Smile and CBOR bodies")
+    class BinaryFormats {
+
+        private static final MediaType SMILE = MediaType.parseMediaType(MovieController.APPLICATION_SMILE_VALUE);
+
+        private ObjectMapper mapper(WireFormat format) {
+            return format.mapper(objectMapper);
+        }
+
+        private long createMovie(String title) throws Exception {
+            String body = mockMvc.perform(post("/api/movies")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"" + title + "\",\"rating\":8}"))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readValue(body, Movie.class).getId();
+        }
+
+        @Test
+        @DisplayName("should create from a Smile body and answer in Smile")
+        void shouldCreateInSmile() throws Exception {
+            Movie movie = new Movie();
+            movie.setTitle("Arrival");
+            movie.setYear(2016);
+
+            byte[] body = mockMvc.perform(post("/api/movies")
+                            .contentType(SMILE)
+                            .accept(SMILE)
+                            .content(mapper(WireFormat.SMILE).writeValueAsBytes(movie)))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().contentType(SMILE))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            Movie created = mapper(WireFormat.SMILE).readValue(body, Movie.class);
+            assertThat(created.getTitle()).isEqualTo("Arrival");
+            assertThat(created.getYear()).isEqualTo(2016);
+            assertThat(created.getId()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("should serve a movie in CBOR under its own strong ETag")
+        void shouldGetInCbor() throws Exception {
+            long id = createMovie("Heat");
+            String json = mockMvc.perform(get("/api/movies/{id}", id))
+                    .andReturn().getResponse().getHeader("ETag");
+            String etag = json.substring(0, json.length() - 1) + "-cbor\"";
+
+            byte[] body = mockMvc.perform(get("/api/movies/{id}", id).accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andExpect(header().string("ETag", etag))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertThat(mapper(WireFormat.CBOR).readValue(body, Movie.class).getTitle()).isEqualTo("Heat");
+
+            mockMvc.perform(get("/api/movies/{id}", id).accept(MediaType.APPLICATION_CBOR)
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag));
+            // The JSON body's tag names other bytes, and the CBOR tag other bytes than JSON's
+            mockMvc.perform(get("/api/movies/{id}", id).accept(MediaType.APPLICATION_CBOR)
+                            .header("If-None-Match", json))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/movies/{id}", id).header("If-None-Match", etag))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/movies/{id}", 999).accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("should take a binary body's ETag in If-Match, and answer with the new one")
+        void shouldMatchBinaryETags() throws Exception {
+            long id = createMovie("Ronin");
+            String smile = mockMvc.perform(get("/api/movies/{id}", id).accept(SMILE))
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(smile).endsWith("-smile\"");
+
+            Movie update = new Movie();
+            update.setTitle("Ronin (1998)");
+            String next = mockMvc.perform(put("/api/movies/{id}", id)
+                            .contentType(SMILE)
+                            .accept(SMILE)
+                            .header("If-Match", smile)
+                            .content(mapper(WireFormat.SMILE).writeValueAsBytes(update)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(next).endsWith("-smile\"").isNotEqualTo(smile);
+
+            mockMvc.perform(delete("/api/movies/{id}", id).header("If-Match", smile))
+                    .andExpect(status().isPreconditionFailed());
+            mockMvc.perform(get("/api/movies/{id}", id).accept(SMILE).header("If-None-Match", next))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(delete("/api/movies/{id}", id).header("If-Match", next))
+                    .andExpect(status().isNoContent());
+        }
+
+        @Test
+        @DisplayName("should list the same movies in Smile as in JSON")
+        void shouldListInSmile() throws Exception {
+            IntStream.rangeClosed(1, 5).forEach(n -> {
+                try {
+                    createMovie("Movie " + n);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            String json = mockMvc.perform(get("/api/movies"))
+                    .andReturn().getResponse().getContentAsString();
+            byte[] smile = mockMvc.perform(get("/api/movies").accept(SMILE))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(SMILE))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            ObjectMapper binary = mapper(WireFormat.SMILE);
+            List<Movie> fromSmile = binary.readValue(smile, binary.getTypeFactory()
+                    .constructCollectionType(List.class, Movie.class));
+            List<Movie> fromJson = objectMapper.readValue(json, objectMapper.getTypeFactory()
+                    .constructCollectionType(List.class, Movie.class));
+            assertThat(fromSmile).hasSize(5).isEqualTo(fromJson);
+            assertThat(smile.length).isLessThan(json.length());
+        }
+
+        @Test
+        @DisplayName("should import a CBOR array and update with a CBOR answer")
+        void shouldImportAndUpdateInCbor() throws Exception {
+            Movie first = new Movie();
+            first.setTitle("Alien");
+            Movie second = new Movie();
+            second.setTitle("Aliens");
+            ObjectMapper cbor = mapper(WireFormat.CBOR);
+
+            mockMvc.perform(post("/api/movies/batch")
+                            .contentType(MediaType.APPLICATION_CBOR)
+                            .content(cbor.writeValueAsBytes(List.of(first, second))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(2));
+
+            Movie update = new Movie();
+            update.setTitle("Alien (1979)");
+            byte[] body = mockMvc.perform(put("/api/movies/{id}", 1)
+                            .contentType(MediaType.APPLICATION_CBOR)
+                            .accept(MediaType.APPLICATION_CBOR)
+                            .content(cbor.writeValueAsBytes(update)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getContentAsByteArray();
+            Movie updated = cbor.readValue(body, Movie.class);
+            assertThat(updated.getTitle()).isEqualTo("Alien (1979)");
+            assertThat(updated.getVersion()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should pick the format with the highest q-value, JSON by default")
+        void shouldNegotiateByQuality() throws Exception {
+            long id = createMovie("Ran");
+            mockMvc.perform(get("/api/movies/{id}", id)
+                            .header("Accept", "application/cbor;q=0.5, application/json"))
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+            mockMvc.perform(get("/api/movies/{id}", id)
+                            .header("Accept", "*/*, application/x-jackson-smile"))
+                    .andExpect(content().contentType(SMILE));
+            mockMvc.perform(get("/api/movies/{id}", id).header("Accept", "*/*"))
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+            // q=0 refuses a type outright
+            mockMvc.perform(get("/api/movies/{id}", id)
+                            .header("Accept", "application/x-jackson-smile;q=0, application/json;q=0"))
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+            mockMvc.perform(get("/api/movies/{id}", id)
+                            .header("Accept", "application/json;q=0, application/cbor;q=0.2"))
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+            mockMvc.perform(get("/api/movies/{id}", id).accept(MediaType.APPLICATION_XML))
+                    .andExpect(status().isNotAcceptable());
+        }
     }
 }
@@ -0,0 +1,86 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Measures durable write throughput with group commit and the time to recover afterwards.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Movie Journal Benchmark")
+class MovieJournalBenchmark {
+
+    private static final int WRITERS = 32;
+    private static final int WRITES_PER_WRITER = 5_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should report write throughput and recovery time")
+    void writeThenRecover() throws Exception {
+        MovieTrackerProperties properties = new MovieTrackerProperties();
+        properties.getPersistence().setEnabled(true);
+        properties.getPersistence().setDirectory(dir);
+        properties.getPersistence().setSnapshotEvery(50_000);
+        JsonMapper mapper = JsonMapper.builder().findAndAddModules().build();
+
+        Map<Long, Movie> store = new ConcurrentSkipListMap<>();
+        AtomicLong ids = new AtomicLong(1);
+        MovieJournal journal = new MovieJournal(mapper, properties);
+        journal.recover();
+        journal.start(store::values, ids::get);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                    long id = ids.getAndIncrement();
+                    Movie movie = MovieJournalTest.movie(id, "Movie " + id);
+                    CompletableFuture<Void> durable;
+                    synchronized (movie) {
+                        store.put(id, movie);
+                        durable = journal.append(MovieJournal.Op.CREATE, movie);
+                    }
+                    durable.join();
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).join();
+        long writeNanos = System.nanoTime() - start;
+        pool.shutdown();
+        journal.close();
+
+        int total = WRITERS * WRITES_PER_WRITER;
+        System.out.printf("%d writers, %,d durable writes: %,.0f writes/s%n",
+                WRITERS, total, total / (writeNanos / 1e9));
+
+        start = System.nanoTime();
+        MovieJournal.Recovered recovered = new MovieJournal(mapper, properties).recover();
+        System.out.printf("Recovered %,d movies in %d ms%n",
+                recovered.movies().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertThat(recovered.movies()).hasSize(total);
+        assertThat(recovered.nextId()).isEqualTo(total + 1L);
+    }
+}
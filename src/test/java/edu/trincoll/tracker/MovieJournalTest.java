@@ -0,0 +1,143 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+@DisplayName("Movie Journal Tests")
+class MovieJournalTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should replay creates, updates and deletes after a restart")
+    void shouldReplayLog() throws IOException {
+        Map<Long, Movie> store = new ConcurrentSkipListMap<>();
+        MovieJournal journal = open(100, store, 4);
+
+        Movie kept = movie(1, "Kept");
+        Movie renamed = movie(2, "Old Name");
+        Movie deleted = movie(3, "Gone");
+        for (Movie m : List.of(kept, renamed, deleted)) {
+            store.put(m.getId(), m);
+            journal.append(MovieJournal.Op.CREATE, m).join();
+        }
+        renamed.setTitle("New Name");
+        journal.append(MovieJournal.Op.UPDATE, renamed).join();
+        store.remove(3L);
+        journal.append(MovieJournal.Op.DELETE, deleted).join();
+        journal.close();
+
+        MovieJournal.Recovered recovered = journal(100).recover();
+
+        assertThat(titles(recovered.movies())).containsExactlyInAnyOrder("Kept", "New Name");
+        assertThat(recovered.nextId()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("should compact into a snapshot and drop the covered log segments")
+    void shouldSnapshot() throws Exception {
+        Map<Long, Movie> store = new ConcurrentSkipListMap<>();
+        MovieJournal journal = open(10, store, 26);
+        for (long id = 1; id <= 25; id++) {
+            Movie m = movie(id, "Movie " + id);
+            store.put(id, m);
+            journal.append(MovieJournal.Op.CREATE, m).join();
+        }
+        journal.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> names = files.map(p -> p.getFileName().toString()).toList();
+            assertThat(names).anyMatch(n -> n.startsWith("snapshot-"));
+            // Only segments newer than the last snapshot remain
+            assertThat(names).filteredOn(n -> n.startsWith("wal-")).hasSizeLessThanOrEqualTo(2);
+        }
+
+        MovieJournal.Recovered recovered = journal(10).recover();
+        assertThat(recovered.movies()).hasSize(25);
+        assertThat(recovered.nextId()).isEqualTo(26);
+    }
+
+    @Test
+    @DisplayName("should ignore a torn entry left by a crash")
+    void shouldIgnoreTornTail() throws IOException {
+        Map<Long, Movie> store = new ConcurrentSkipListMap<>();
+        MovieJournal journal = open(100, store, 2);
+        Movie m = movie(1, "Survivor");
+        journal.append(MovieJournal.Op.CREATE, m).join();
+        journal.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            Path segment = files.filter(p -> p.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+            Files.write(segment, "{\"seq\":2,\"op\":\"CRE".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+
+        assertThat(titles(journal(100).recover().movies())).containsExactly("Survivor");
+    }
+
+    @Test
+    @DisplayName("should keep entries written after a torn first write to a fresh segment")
+    void shouldTruncateTornTailBeforeAppending() throws IOException {
+        Map<Long, Movie> store = new ConcurrentSkipListMap<>();
+        MovieJournal journal = open(100, store, 2);
+        journal.append(MovieJournal.Op.CREATE, movie(1, "Before")).join();
+        journal.close();
+        // The crash hit the first write to the segment the restart will reopen
+        Files.write(dir.resolve("wal-00000000000000000002.log"),
+                "{\"seq\":2,\"op\":\"CRE".getBytes(StandardCharsets.UTF_8));
+
+        journal = open(100, store, 3);
+        journal.append(MovieJournal.Op.CREATE, movie(2, "After")).join();
+        journal.close();
+
+        assertThat(titles(journal(100).recover().movies())).containsExactlyInAnyOrder("Before", "After");
+    }
+
+    private MovieJournal open(int snapshotEvery, Map<Long, Movie> store, long nextId) throws IOException {
+        MovieJournal journal = journal(snapshotEvery);
+        journal.recover();
+        journal.start(store::values, () -> nextId);
+        return journal;
+    }
+
+    private MovieJournal journal(int snapshotEvery) {
+        MovieTrackerProperties properties = new MovieTrackerProperties();
+        properties.getPersistence().setEnabled(true);
+        properties.getPersistence().setDirectory(dir);
+        properties.getPersistence().setSnapshotEvery(snapshotEvery);
+        return new MovieJournal(mapper, properties);
+    }
+
+    static Movie movie(long id, String title) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        return movie;
+    }
+
+    private static List<String> titles(Collection<Movie> movies) {
+        return movies.stream().map(Movie::getTitle).toList();
+    }
+}
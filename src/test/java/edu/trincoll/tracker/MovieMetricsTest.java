@@ -0,0 +1,130 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Drives the API and checks the meters it records, including the Prometheus scrape.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@DisplayName("Movie Metrics Tests")
+class MovieMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovieController controller;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        controller.clearStore();
+    }
+
+    private void create(String title) throws Exception {
+        mockMvc.perform(post("/api/movies")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\"}"));
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    @Test
+    @DisplayName("should count duplicate titles and missing ids")
+    void shouldCountRejections() throws Exception {
+        double duplicates = count("movies.duplicates.rejected");
+        double notFound = count("movies.not.found");
+
+        create("Alien");
+        create("Alien");
+        mockMvc.perform(get("/api/movies/{id}", 999)).andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/movies/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"Alien\"},{\"title\":\"Heat\"}]"))
+                .andExpect(status().isOk());
+
+        assertThat(count("movies.duplicates.rejected")).isEqualTo(duplicates + 2);
+        assertThat(count("movies.not.found")).isEqualTo(notFound + 1);
+        assertThat(registry.get("movies.store.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should time scans and serialization and record search sizes")
+    void shouldTimeHotPaths() throws Exception {
+        create("Alien");
+        create("Aliens");
+        long lists = registry.get("movies.scan").tag("query", "list").timer().count();
+        long responses = registry.get("movies.serialize").tag("body", "response").timer().count();
+        long searches = registry.get("movies.search.results").summary().count();
+
+        mockMvc.perform(get("/api/movies")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/movies/search").param("title", "alien")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/movies/{id}", 1)).andExpect(status().isOk());
+
+        assertThat(registry.get("movies.scan").tag("query", "list").timer().count()).isEqualTo(lists + 1);
+        assertThat(registry.get("movies.scan").tag("query", "search").timer().count()).isPositive();
+        assertThat(registry.get("movies.serialize").tag("body", "response").timer().count())
+                .isEqualTo(responses + 2);
+        assertThat(registry.get("movies.serialize").tag("body", "movie").timer().count()).isPositive();
+        assertThat(registry.get("movies.search.results").summary().count()).isEqualTo(searches + 1);
+        assertThat(registry.get("movies.search.results").summary().max()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should bucket microsecond timings apart")
+    void shouldResolveMicroseconds() {
+        Timer scan = registry.get("movies.scan").tag("query", "list").timer();
+        Timer serialize = registry.get("movies.serialize").tag("body", "movie").timer();
+
+        for (Timer timer : List.of(scan, serialize)) {
+            long bucketsUnderOneMillis = Arrays.stream(timer.takeSnapshot().histogramCounts())
+                    .filter(bucket -> bucket.bucket(TimeUnit.NANOSECONDS) < 1_000_000)
+                    .count();
+            assertThat(bucketsUnderOneMillis).isGreaterThan(5);
+        }
+    }
+
+    @Test
+    @DisplayName("should expose latency histograms in Prometheus format")
+    void shouldExposePrometheus() throws Exception {
+        mockMvc.perform(get("/api/movies/{id}", 1));
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/movies/{id}\"")
+                .contains("movies_store_size_movies")
+                .contains("movies_not_found_total")
+                .contains("movies_scan_seconds_bucket{")
+                .contains("movies_serialize_seconds_bucket{");
+    }
+}
@@ -0,0 +1,54 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DisplayName("Movie Patch Tests")
+class MoviePatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private MoviePatch patch(String json) throws Exception {
+        return MoviePatch.of(mapper.readTree(json));
+    }
+
+    @Test
+    @DisplayName("should keep absent fields and clear nulled ones")
+    void shouldMergeFields() throws Exception {
+        Movie existing = SecondaryIndexesTest.movie(4, "Nolan", 2010, 8, false);
+
+        Movie patched = patch("{\"rating\":null,\"watched\":true,\"year\":2011}").applyTo(existing);
+
+        assertThat(patched.getTitle()).isEqualTo(existing.getTitle());
+        assertThat(patched.getDirector()).isEqualTo("Nolan");
+        assertThat(patched.getYear()).isEqualTo(2011);
+        assertThat(patched.getRating()).isNull();
+        assertThat(patched.isWatched()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should expose id and version preconditions")
+    void shouldReadIdAndVersion() throws Exception {
+        MoviePatch patch = patch("{\"id\":12,\"version\":3}");
+
+        assertThat(patch.id()).isEqualTo(12L);
+        assertThat(patch.expectedVersion()).isEqualTo(3L);
+        assertThat(patch("{}").id()).isNull();
+        assertThat(patch("{}").expectedVersion()).isNull();
+    }
+
+    @Test
+    @DisplayName("should reject unknown fields and wrong types")
+    void shouldRejectBadFields() {
+        assertThatThrownBy(() -> patch("{\"ratng\":3}")).hasMessageContaining("ratng");
+        assertThatThrownBy(() -> patch("{\"title\":null}")).hasMessageContaining("title");
+        assertThatThrownBy(() -> patch("{\"year\":\"1999\"}")).hasMessageContaining("year");
+        assertThatThrownBy(() -> patch("{\"watched\":1}")).hasMessageContaining("watched");
+        assertThatThrownBy(() -> patch("[1]")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
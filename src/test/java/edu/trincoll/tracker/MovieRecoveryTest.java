@@ -0,0 +1,72 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+/**
+ * Restarts the app over the same data directory, as a deploy would, and checks what clients
+ * holding state from the previous run see.
+ */
+@DisplayName("Movie Recovery Tests")
+class MovieRecoveryTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @TempDir
+    Path data;
+
+    private ServletWebServerApplicationContext start() {
+        // As arguments, so they win over the test properties
+        return (ServletWebServerApplicationContext) new SpringApplicationBuilder(MovieTrackerApplication.class).run(
+                "--server.port=0",
+                "--movies.persistence.enabled=true",
+                "--movies.persistence.directory=" + data);
+    }
+
+    private HttpResponse<String> send(ServletWebServerApplicationContext context, String method, String path,
+                                      String body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + context.getWebServer().getPort() + path))
+                .header("Accept", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("should neither replay recovered movies as changes nor honor cursors from the last run")
+    void shouldStartFeedAfterRecovery() throws Exception {
+        String cursor;
+        try (var first = start()) {
+            assertThat(send(first, "POST", "/api/movies", "{\"title\":\"Survivor\"}").statusCode()).isEqualTo(201);
+            cursor = send(first, "GET", "/api/movies/changes?since=0", null)
+                    .headers().firstValue(MovieController.NEXT_CURSOR_HEADER).orElseThrow();
+            assertThat(cursor).endsWith(".1");
+        }
+
+        try (var second = start()) {
+            assertThat(send(second, "GET", "/api/movies/1", null).statusCode()).isEqualTo(200);
+
+            // The old cursor names no change of this run, and recovery published nothing
+            HttpResponse<String> stale = send(second, "GET", "/api/movies/changes?since=" + cursor, null);
+            assertThat(stale.statusCode()).isEqualTo(410);
+            String head = stale.headers().firstValue(MovieController.NEXT_CURSOR_HEADER).orElseThrow();
+            assertThat(head).endsWith(".0").isNotEqualTo(cursor.replace(".1", ".0"));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the heap each backend retains for the same catalog.
+ * Titles are unique strings and cost the same in both, so they are shared across runs
+ * and only the per-movie overhead shows up. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Movie Repository Benchmark")
+class MovieRepositoryBenchmark {
+
+    private static final int MOVIES = 1_000_000;
+
+    @Test
+    @DisplayName("columnar store should retain several times less heap")
+    void retainedHeapPerMovie() {
+        String[] titles = new String[MOVIES];
+        String[] directors = new String[1_000];
+        for (int i = 0; i < MOVIES; i++) {
+            titles[i] = "Movie " + i;
+        }
+        for (int i = 0; i < directors.length; i++) {
+            directors[i] = "Director " + i;
+        }
+
+        // Columnar first: its baseline would otherwise still count the skip list's freed nodes
+        long columnar = retained(new ColumnarMovieRepository(), titles, directors);
+        long skipList = retained(new SkipListMovieRepository(), titles, directors);
+        System.out.printf("Retained per movie: skiplist %d B, columnar %d B%n",
+                skipList / MOVIES, columnar / MOVIES);
+
+        assertThat(columnar * 4).isLessThan(skipList);
+    }
+
+    private static long retained(MovieRepository store, String[] titles, String[] directors) {
+        long before = usedAfterGc();
+        for (int i = 0; i < titles.length; i++) {
+            Movie movie = new Movie();
+            movie.setId(i + 1L);
+            movie.setTitle(titles[i]);
+            // Fresh copies, as each request body would deliver them
+            movie.setDirector(new String(directors[i % directors.length]));
+            movie.setYear(1900 + i % 120);
+            movie.setRating(i % 11);
+            movie.setWatched(i % 3 == 0);
+            store.put(movie);
+        }
+        long used = usedAfterGc() - before;
+        assertThat(store.size()).isEqualTo(titles.length);
+        store.clear();
+        return used;
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,161 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@DisplayName("Movie Repository Tests")
+class MovieRepositoryTest {
+
+    static MovieRepository repository(MovieTrackerProperties.Store.Backend backend) {
+        return switch (backend) {
+            case SKIPLIST -> new SkipListMovieRepository();
+            case COLUMNAR -> new ColumnarMovieRepository();
+        };
+    }
+
+    private static List<Long> ids(Iterable<Movie> movies) {
+        List<Long> ids = new ArrayList<>();
+        movies.forEach(m -> ids.add(m.getId()));
+        return ids;
+    }
+
+    @ParameterizedTest
+    @EnumSource(MovieTrackerProperties.Store.Backend.class)
+    @DisplayName("should round-trip every field, including nulls")
+    void shouldRoundTrip(MovieTrackerProperties.Store.Backend backend) {
+        MovieRepository store = repository(backend);
+        Movie full = MovieJournalTest.movie(7, "Arrival");
+        full.setDirector("Denis Villeneuve");
+        full.setYear(2016);
+        full.setRating(9);
+        full.setWatched(true);
+        full.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000));
+        full.setVersion(3);
+        Movie sparse = MovieJournalTest.movie(9, "Untitled");
+        sparse.setCreatedAt(null);
+
+        store.put(full);
+        store.put(sparse);
+
+        assertThat(store.get(7)).isEqualTo(full);
+        assertThat(store.get(7).getCreatedAt()).isEqualTo(full.getCreatedAt());
+        assertThat(store.get(7).getVersion()).isEqualTo(3);
+        assertThat(store.get(9)).isEqualTo(sparse);
+        assertThat(store.get(9).getCreatedAt()).isNull();
+        assertThat(store.get(8)).isNull();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MovieTrackerProperties.Store.Backend.class)
+    @DisplayName("should keep id order for out-of-order puts and page with after")
+    void shouldKeepIdOrder(MovieTrackerProperties.Store.Backend backend) {
+        MovieRepository store = repository(backend);
+        for (long id : new long[]{5, 1, 9, 3, 7}) {
+            store.put(MovieJournalTest.movie(id, "Movie " + id));
+        }
+
+        assertThat(ids(store.values())).containsExactly(1L, 3L, 5L, 7L, 9L);
+        assertThat(ids(store.after(3))).containsExactly(5L, 7L, 9L);
+        assertThat(ids(store.after(4))).containsExactly(5L, 7L, 9L);
+        assertThat(ids(store.after(9))).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(MovieTrackerProperties.Store.Backend.class)
+    @DisplayName("should replace, remove and re-insert by id")
+    void shouldReplaceAndRemove(MovieTrackerProperties.Store.Backend backend) {
+        MovieRepository store = repository(backend);
+        store.put(MovieJournalTest.movie(1, "Old"));
+        store.put(MovieJournalTest.movie(2, "Other"));
+        store.put(MovieJournalTest.movie(1, "New"));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get(1).getTitle()).isEqualTo("New");
+
+        assertThat(store.remove(1).getTitle()).isEqualTo("New");
+        assertThat(store.remove(1)).isNull();
+        assertThat(store.get(1)).isNull();
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(ids(store.values())).containsExactly(2L);
+
+        store.put(MovieJournalTest.movie(1, "Back"));
+        assertThat(store.get(1).getTitle()).isEqualTo("Back");
+        assertThat(ids(store.values())).containsExactly(1L, 2L);
+
+        store.clear();
+        assertThat(store.size()).isZero();
+        assertThat(store.values()).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(MovieTrackerProperties.Store.Backend.class)
+    @DisplayName("should stay ordered across growth and heavy deletes")
+    void shouldSurviveCompaction(MovieTrackerProperties.Store.Backend backend) {
+        MovieRepository store = repository(backend);
+        for (long id = 1; id <= 10_000; id++) {
+            store.put(MovieJournalTest.movie(id, "Movie " + id));
+        }
+        for (long id = 1; id <= 10_000; id++) {
+            if (id % 10 != 0) {
+                store.remove(id);
+            }
+        }
+
+        assertThat(store.size()).isEqualTo(1_000);
+        List<Long> ids = ids(store.values());
+        assertThat(ids).hasSize(1_000).isSorted();
+        assertThat(ids.get(0)).isEqualTo(10L);
+        assertThat(store.get(5_000).getTitle()).isEqualTo("Movie 5000");
+        assertThat(store.get(5_001)).isNull();
+    }
+
+    @Test
+    @DisplayName("columnar store should refuse a rating that does not fit its byte")
+    void columnarRefusesWideRating() {
+        MovieRepository store = new ColumnarMovieRepository();
+        Movie movie = MovieJournalTest.movie(1, "Too Good");
+        movie.setRating(200);
+
+        assertThatThrownBy(() -> store.put(movie)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.get(1)).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("columnar iteration should tolerate writes between chunks")
+    void columnarIterationIsWeaklyConsistent() {
+        MovieRepository store = new ColumnarMovieRepository();
+        for (long id = 1; id <= 1_000; id++) {
+            store.put(MovieJournalTest.movie(id, "Movie " + id));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        Iterator<Movie> it = store.values().iterator();
+        while (it.hasNext()) {
+            long id = it.next().getId();
+            seen.add(id);
+            if (id == 100) {
+                // Delete past the chunk already handed out, and append behind the cursor's end
+                for (long gone = 1; gone <= 600; gone++) {
+                    store.remove(gone);
+                }
+                store.put(MovieJournalTest.movie(2_000, "Late"));
+            }
+        }
+
+        assertThat(seen).isSorted().doesNotHaveDuplicates()
+                .contains(601L, 1_000L, 2_000L)
+                .doesNotContain(300L, 600L);
+    }
+}
@@ -0,0 +1,66 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Times writing and fully decoding a multi-million-row snapshot.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Movie Snapshot Benchmark")
+class MovieSnapshotBenchmark {
+
+    private static final int ROWS = 2_000_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should load millions of rows quickly")
+    void loadLargeSnapshot() throws Exception {
+        Path file = dir.resolve("snapshot.bin");
+        Iterable<Movie> movies = () -> new Iterator<>() {
+            long id = 1;
+
+            @Override
+            public boolean hasNext() {
+                return id <= ROWS;
+            }
+
+            @Override
+            public Movie next() {
+                Movie movie = MovieJournalTest.movie(id, "Movie " + id);
+                movie.setDirector("Director " + (id % 10_000));
+                movie.setYear(1900 + (int) (id % 120));
+                movie.setRating((int) (id % 11));
+                id++;
+                return movie;
+            }
+        };
+
+        long start = System.nanoTime();
+        MovieSnapshot.write(file, movies, 0, ROWS + 1L);
+        System.out.printf("Wrote %,d rows (%,d bytes) in %d ms%n", ROWS, Files.size(file),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        for (int round = 0; round < 3; round++) {
+            start = System.nanoTime();
+            MovieSnapshot.Reader reader = MovieSnapshot.open(file);
+            long[] checksum = {0};
+            reader.forEach(m -> checksum[0] += m.getId());
+            System.out.printf("Decoded %,d rows in %d ms%n", reader.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            assertThat(checksum[0]).isEqualTo((long) ROWS * (ROWS + 1) / 2);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Movie Snapshot Tests")
+class MovieSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should round-trip every field, including nulls")
+    void shouldRoundTrip() throws IOException {
+        Movie full = MovieJournalTest.movie(7, "Arrival");
+        full.setDirector("Denis Villeneuve");
+        full.setYear(2016);
+        full.setRating(9);
+        full.setWatched(true);
+        full.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000));
+        full.setVersion(12);
+        Movie sparse = MovieJournalTest.movie(9, "Untitled ✓");
+
+        Path file = dir.resolve("snapshot.bin");
+        MovieSnapshot.write(file, List.of(full, sparse), 42, 10);
+        MovieSnapshot.Reader reader = MovieSnapshot.open(file);
+
+        assertThat(reader.seq()).isEqualTo(42);
+        assertThat(reader.nextId()).isEqualTo(10);
+        assertThat(reader.size()).isEqualTo(2);
+        assertThat(reader.row(0)).isEqualTo(full);
+        assertThat(reader.row(0).getCreatedAt()).isEqualTo(full.getCreatedAt());
+        assertThat(reader.row(0).getVersion()).isEqualTo(12);
+        assertThat(reader.row(1)).isEqualTo(sparse);
+        assertThat(reader.row(1).getYear()).isNull();
+        assertThat(reader.row(1).getRating()).isNull();
+    }
+
+    @Test
+    @DisplayName("should share repeated directors")
+    void shouldShareStrings() throws IOException {
+        List<Movie> movies = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id += 3) {
+            Movie movie = MovieJournalTest.movie(id, "Movie " + id);
+            movie.setDirector("Director " + (id % 5));
+            movies.add(movie);
+        }
+        Path file = dir.resolve("snapshot.bin");
+        MovieSnapshot.write(file, movies, 0, 1_001);
+        MovieSnapshot.Reader reader = MovieSnapshot.open(file);
+
+        // ids 1 and 16, both by Director 1
+        assertThat(reader.row(100).getTitle()).isEqualTo("Movie 301");
+        assertThat(reader.row(0).getDirector()).isSameAs(reader.row(5).getDirector());
+    }
+
+    @Test
+    @DisplayName("should refuse movies out of id order")
+    void shouldRequireIdOrder() {
+        List<Movie> movies = List.of(MovieJournalTest.movie(2, "B"), MovieJournalTest.movie(1, "A"));
+
+        assertThatThrownBy(() -> MovieSnapshot.write(dir.resolve("bad.bin"), movies, 0, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("should refuse a rating that does not fit its byte")
+    void shouldRefuseWideRating() {
+        Movie movie = MovieJournalTest.movie(1, "A");
+        movie.setRating(200);
+
+        assertThatThrownBy(() -> MovieSnapshot.write(dir.resolve("bad.bin"), List.of(movie), 0, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
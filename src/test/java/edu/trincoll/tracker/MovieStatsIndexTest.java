@@ -0,0 +1,82 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Movie Stats Index Tests")
+class MovieStatsIndexTest {
+
+    @Test
+    @DisplayName("should aggregate adds, updates and removals")
+    void shouldAggregate() {
+        MovieStatsIndex stats = new MovieStatsIndex();
+        stats.added(SecondaryIndexesTest.movie(1, "Nolan", 2008, 9, true));
+        stats.added(SecondaryIndexesTest.movie(2, "Nolan", 2010, 7, false));
+        stats.added(SecondaryIndexesTest.movie(3, "Villeneuve", 2016, 8, true));
+        stats.added(SecondaryIndexesTest.movie(4, null, null, null, false));
+
+        MovieStats before = stats.snapshot();
+        assertThat(before.total()).isEqualTo(4);
+        assertThat(before.watched()).isEqualTo(2);
+        assertThat(before.unwatched()).isEqualTo(2);
+        assertThat(before.rated()).isEqualTo(3);
+        assertThat(before.averageRating()).isEqualTo(8.0);
+        assertThat(before.byDirector()).isEqualTo(Map.of("Nolan", 2L, "Villeneuve", 1L));
+        assertThat(before.byDecade()).isEqualTo(Map.of("2000s", 1L, "2010s", 2L));
+
+        stats.replaced(SecondaryIndexesTest.movie(2, "Nolan", 2010, 7, false),
+                SecondaryIndexesTest.movie(2, "Villeneuve", 1999, 10, true));
+        stats.removed(SecondaryIndexesTest.movie(1, "Nolan", 2008, 9, true));
+
+        MovieStats after = stats.snapshot();
+        assertThat(after.total()).isEqualTo(3);
+        assertThat(after.watched()).isEqualTo(2);
+        assertThat(after.averageRating()).isEqualTo(9.0);
+        assertThat(after.byDirector()).isEqualTo(Map.of("Villeneuve", 2L));
+        assertThat(after.byDecade()).isEqualTo(Map.of("1990s", 1L, "2010s", 1L));
+    }
+
+    @Test
+    @DisplayName("should report no average for an unrated catalog")
+    void shouldHandleEmpty() {
+        MovieStats empty = new MovieStatsIndex().snapshot();
+
+        assertThat(empty.total()).isZero();
+        assertThat(empty.averageRating()).isNull();
+        assertThat(empty.byDirector()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should stay exact under concurrent writers")
+    void shouldCountConcurrently() {
+        MovieStatsIndex stats = new MovieStatsIndex();
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long base = t * 10_000L;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (long id = base; id < base + 10_000; id++) {
+                    Movie movie = SecondaryIndexesTest.movie(id, "D" + id % 7, 1990 + (int) (id % 30),
+                            (int) (id % 11), id % 2 == 0);
+                    stats.added(movie);
+                    if (id % 4 == 0) {
+                        stats.removed(movie);
+                    }
+                }
+            }));
+        }
+        writers.forEach(CompletableFuture::join);
+
+        MovieStats result = stats.snapshot();
+        assertThat(result.total()).isEqualTo(60_000);
+        assertThat(result.watched()).isEqualTo(20_000);
+        assertThat(result.byDirector().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(60_000);
+        assertThat(result.byDecade().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(60_000);
+    }
+}
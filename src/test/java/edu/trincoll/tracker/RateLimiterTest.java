@@ -0,0 +1,125 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Rate Limiter Tests")
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("should allow a burst, then one request per interval")
+    void shouldAllowBurstThenRate() {
+        RateLimiter limiter = new RateLimiter(10, 5, 100, clock::get);
+        for (int n = 0; n < 5; n++) {
+            assertThat(limiter.acquire("a")).isZero();
+        }
+        // The next token comes a tenth of a second later
+        assertThat(limiter.acquire("a")).isEqualTo(SECOND / 10);
+
+        clock.addAndGet(SECOND / 10);
+        assertThat(limiter.acquire("a")).isZero();
+        assertThat(limiter.acquire("a")).isPositive();
+
+        // A quiet spell refills the bucket, but never past the burst
+        clock.addAndGet(10 * SECOND);
+        for (int n = 0; n < 5; n++) {
+            assertThat(limiter.acquire("a")).isZero();
+        }
+        assertThat(limiter.acquire("a")).isPositive();
+    }
+
+    @Test
+    @DisplayName("should keep a bucket per key")
+    void shouldSeparateKeys() {
+        RateLimiter limiter = new RateLimiter(1, 1, 100, clock::get);
+        assertThat(limiter.acquire("a")).isZero();
+        assertThat(limiter.acquire("a")).isEqualTo(SECOND);
+        assertThat(limiter.acquire("b")).isZero();
+    }
+
+    @Test
+    @DisplayName("should not refund refused requests")
+    void shouldNotChargeRefusals() {
+        RateLimiter limiter = new RateLimiter(1, 1, 100, clock::get);
+        limiter.acquire("a");
+        for (int n = 0; n < 100; n++) {
+            limiter.acquire("a");
+        }
+        clock.addAndGet(SECOND);
+        assertThat(limiter.acquire("a")).isZero();
+    }
+
+    @Test
+    @DisplayName("should work across a nanoTime wraparound")
+    void shouldSurviveClockWrap() {
+        clock.set(Long.MAX_VALUE - SECOND / 2);
+        RateLimiter limiter = new RateLimiter(1, 1, 100, clock::get);
+        assertThat(limiter.acquire("a")).isZero();
+        assertThat(limiter.acquire("a")).isEqualTo(SECOND);
+
+        clock.addAndGet(SECOND);
+        assertThat(limiter.acquire("a")).isZero();
+    }
+
+    @Test
+    @DisplayName("should drop full buckets once there are too many")
+    void shouldSweepIdleBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 1, 10, clock::get);
+        for (int n = 0; n < 10; n++) {
+            limiter.acquire("client " + n);
+        }
+        clock.addAndGet(2 * SECOND);
+        limiter.acquire("busy");
+        limiter.acquire("newcomer");
+        assertThat(limiter.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should hand out exactly the burst to racing threads")
+    void shouldNotOverAdmitUnderContention() throws Exception {
+        // The clock stands still, so only the burst can ever be admitted
+        RateLimiter limiter = new RateLimiter(1, 1_000, 100, clock::get);
+        List<Future<Integer>> racers = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                racers.add(pool.submit(() -> {
+                    int admitted = 0;
+                    for (int n = 0; n < 10_000; n++) {
+                        if (limiter.acquire("shared") == 0) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                }));
+            }
+            int admitted = 0;
+            for (Future<Integer> racer : racers) {
+                admitted += racer.get();
+            }
+            assertThat(admitted).isEqualTo(1_000);
+        }
+    }
+
+    @Test
+    @DisplayName("should reject a rate or burst that admits nothing")
+    void shouldRejectBadSettings() {
+        assertThatThrownBy(() -> new RateLimiter(0, 10, 100, clock::get))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RateLimiter(10, 0, 100, clock::get))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
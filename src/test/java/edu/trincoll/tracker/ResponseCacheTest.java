@@ -0,0 +1,179 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+@DisplayName("Response Cache Tests")
+class ResponseCacheTest {
+
+    // Stands in for the store the cache checks fills against
+    private final Map<Long, Movie> stored = new HashMap<>();
+
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Movie store(long id, long version) {
+        Movie movie = MovieJournalTest.movie(id, "Movie " + id);
+        movie.setVersion(version);
+        stored.put(id, movie);
+        return movie;
+    }
+
+    private ResponseCache cache(int maxEntries) {
+        return new ResponseCache(maxEntries, stored::get);
+    }
+
+    @Test
+    @DisplayName("should serve a cached body until the movie changes")
+    void shouldInvalidateOnWrite() {
+        ResponseCache cache = cache(100);
+        Movie old = store(1, 1);
+        ResponseCache.Entry entry = cache.put(old, body("{\"id\":1}"));
+
+        assertThat(cache.get(1)).isSameAs(entry);
+        assertThat(entry.etag()).startsWith("\"").endsWith("\"");
+        assertThat(entry.version()).isEqualTo(1);
+
+        Movie updated = store(1, 2);
+        cache.replaced(old, updated);
+        assertThat(cache.get(1)).isNull();
+
+        ResponseCache.Entry refilled = cache.put(updated, body("{\"id\":1,\"x\":2}"));
+        assertThat(refilled.etag()).isNotEqualTo(entry.etag());
+        assertThat(cache.get(1)).isSameAs(refilled);
+    }
+
+    @Test
+    @DisplayName("should not cache a body loaded before a write to the same movie")
+    void shouldDropStalePut() {
+        ResponseCache cache = cache(100);
+        Movie loaded = store(1, 1);
+        // The write lands between the load and the fill
+        cache.replaced(loaded, store(1, 2));
+
+        ResponseCache.Entry entry = cache.put(loaded, body("{\"id\":1}"));
+
+        assertThat(entry).isNotNull();
+        assertThat(cache.get(1)).isNull();
+
+        Movie gone = store(2, 1);
+        stored.remove(2L);
+        cache.removed(gone);
+        cache.put(gone, body("{\"id\":2}"));
+        assertThat(cache.get(2)).isNull();
+    }
+
+    @Test
+    @DisplayName("should keep fills of one movie while other movies are written")
+    void shouldGateFillsPerMovie() {
+        ResponseCache cache = cache(100);
+        Movie loaded = store(1, 1);
+        long listVersion = cache.version();
+        Movie other = store(2, 1);
+        cache.replaced(other, store(2, 2));
+
+        cache.put(loaded, body("{\"id\":1}"));
+
+        assertThat(cache.get(1)).isNotNull();
+        // Lists still see every write
+        assertThat(cache.version()).isGreaterThan(listVersion);
+    }
+
+    @Test
+    @DisplayName("should never replace a newer rendering with an older one")
+    void shouldKeepNewestFill() {
+        ResponseCache cache = cache(100);
+        Movie first = store(1, 1);
+        Movie second = store(1, 2);
+        ResponseCache.Entry newer = cache.put(second, body("{\"v\":2}"));
+
+        cache.put(first, body("{\"v\":1}"));
+
+        assertThat(cache.get(1)).isSameAs(newer);
+    }
+
+    @Test
+    @DisplayName("should evict entries not read since the last sweep past its bound")
+    void shouldEvictUnreferenced() {
+        ResponseCache cache = cache(2);
+        cache.put(store(0, 1), body("0"));
+        cache.put(store(16, 1), body("16"));
+        cache.get(0);
+        cache.put(store(32, 1), body("32"));
+
+        assertThat(cache.get(0)).isNotNull();
+        assertThat(cache.get(16)).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+
+        for (long id = 0; id < 1_000; id++) {
+            cache.put(store(id, 1), body("x"));
+        }
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should compute ETags without caching when the bound is zero")
+    void shouldComputeWithoutCaching() {
+        ResponseCache cache = cache(0);
+        ResponseCache.Entry entry = cache.put(store(1, 1), body("{\"id\":1}"));
+
+        assertThat(entry.etag()).isNotBlank();
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    @DisplayName("should match If-None-Match lists, wildcards and weak tags")
+    void shouldMatchIfNoneMatch() {
+        assertThat(ResponseCache.matches(null, "\"a\"")).isFalse();
+        assertThat(ResponseCache.matches("\"a\"", "\"a\"")).isTrue();
+        assertThat(ResponseCache.matches("\"b\", W/\"a\"", "\"a\"")).isTrue();
+        assertThat(ResponseCache.matches("*", "\"a\"")).isTrue();
+        assertThat(ResponseCache.matches("\"b\"", "\"a\"")).isFalse();
+        assertThat(ResponseCache.matches("\"a\"", "W/\"a\"")).isTrue();
+    }
+
+    @Test
+    @DisplayName("should read tag lists with odd spacing and empty entries")
+    void shouldScanTagLists() {
+        assertThat(ResponseCache.matches(" \"b\" ,, \t\"a\"  ", "\"a\"")).isTrue();
+        assertThat(ResponseCache.matches("\"ab\", \"\"", "\"a\"")).isFalse();
+        assertThat(ResponseCache.matches("", "\"a\"")).isFalse();
+        assertThat(ResponseCache.matches("W/*", "\"a\"")).isTrue();
+
+        assertThat(ResponseCache.matchesStrong("\"b\", \"a\"", "\"a\"")).isTrue();
+        assertThat(ResponseCache.matchesStrong(" * ", "\"a\"")).isTrue();
+        assertThat(ResponseCache.matchesStrong("W/\"a\"", "\"a\"")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should hand every hit the same ready-made response")
+    void shouldReuseResponse() {
+        ResponseCache cache = cache(100);
+        cache.put(store(1, 1), body("{\"id\":1}"));
+
+        ResponseEntity<byte[]> response = cache.get(1).response();
+        assertThat(cache.get(1).response()).isSameAs(response);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(cache.get(1).body());
+        assertThat(response.getHeaders().getETag()).isEqualTo(cache.get(1).etag());
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().get("etag")).containsExactly(cache.get(1).etag());
+        assertThat(response.getHeaders().size()).isEqualTo(2);
+
+        ResponseEntity<byte[]> notModified = cache.get(1).notModified();
+        assertThat(cache.get(1).notModified()).isSameAs(notModified);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(cache.get(1).etag());
+        assertThat(notModified.getHeaders().getContentType()).isNull();
+    }
+}
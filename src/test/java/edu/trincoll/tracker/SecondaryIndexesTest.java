@@ -0,0 +1,137 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Secondary Indexes Tests")
+class SecondaryIndexesTest {
+
+    private SecondaryIndexes indexes;
+
+    @BeforeEach
+    void setUp() {
+        indexes = new SecondaryIndexes();
+        indexes.added(movie(1, "Nolan", 2008, 9, true));
+        indexes.added(movie(2, "Nolan", 2010, 8, false));
+        indexes.added(movie(3, "Villeneuve", 2016, 8, true));
+        indexes.added(movie(4, null, null, null, false));
+        indexes.added(movie(70, "Villeneuve", 2021, 7, false));
+        indexes.added(movie(130, "Nolan", 2023, 8, true));
+    }
+
+    static Movie movie(long id, String director, Integer year, Integer rating, boolean watched) {
+        Movie movie = MovieJournalTest.movie(id, "Movie " + id);
+        movie.setDirector(director);
+        movie.setYear(year);
+        movie.setRating(rating);
+        movie.setWatched(watched);
+        return movie;
+    }
+
+    private List<Long> candidates(MovieFilter filter, long afterId) {
+        List<Long> ids = new ArrayList<>();
+        indexes.candidates(filter, afterId).forEach(ids::add);
+        return ids;
+    }
+
+    @Test
+    @DisplayName("should answer each filter from its own index, in id order")
+    void shouldUseEachIndex() {
+        assertThat(candidates(new MovieFilter("Nolan", null, null, null, null), Long.MIN_VALUE))
+                .containsExactly(1L, 2L, 130L);
+        assertThat(candidates(new MovieFilter(null, 2010, 2021, null, null), Long.MIN_VALUE))
+                .containsExactly(2L, 3L, 70L);
+        assertThat(candidates(new MovieFilter(null, null, null, 8, null), Long.MIN_VALUE))
+                .containsExactly(1L, 2L, 3L, 130L);
+        assertThat(candidates(new MovieFilter(null, null, null, null, true), Long.MIN_VALUE))
+                .containsExactly(1L, 3L, 130L);
+        assertThat(candidates(new MovieFilter(null, null, null, null, false), Long.MIN_VALUE))
+                .containsExactly(2L, 4L, 70L);
+    }
+
+    @Test
+    @DisplayName("should resume after a cursor, including inside a bitmap word")
+    void shouldResumeAfterCursor() {
+        assertThat(candidates(new MovieFilter(null, null, null, null, true), 1)).containsExactly(3L, 130L);
+        assertThat(candidates(new MovieFilter(null, null, null, null, false), 4)).containsExactly(70L);
+        assertThat(candidates(new MovieFilter(null, null, null, null, false), 70)).isEmpty();
+        assertThat(candidates(new MovieFilter("Nolan", null, null, null, null), 2)).containsExactly(130L);
+        assertThat(candidates(new MovieFilter(null, 2000, null, null, null), 3)).containsExactly(70L, 130L);
+    }
+
+    @Test
+    @DisplayName("should drive the query from the most selective filter")
+    void shouldPickSmallestCandidateSet() {
+        // Villeneuve has two movies; watched=true has three
+        assertThat(candidates(new MovieFilter("Villeneuve", null, null, null, true), Long.MIN_VALUE))
+                .containsExactly(3L, 70L);
+        assertThat(candidates(new MovieFilter("Kubrick", null, null, null, true), Long.MIN_VALUE)).isEmpty();
+        assertThat(candidates(new MovieFilter(null, 2020, 2010, null, null), Long.MIN_VALUE)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should follow updates and removals")
+    void shouldFollowWrites() {
+        indexes.replaced(movie(2, "Nolan", 2010, 8, false), movie(2, "Villeneuve", 2011, 8, true));
+        indexes.removed(movie(3, "Villeneuve", 2016, 8, true));
+
+        assertThat(candidates(new MovieFilter("Villeneuve", null, null, null, null), Long.MIN_VALUE))
+                .containsExactly(2L, 70L);
+        assertThat(candidates(new MovieFilter("Nolan", null, null, null, null), Long.MIN_VALUE))
+                .containsExactly(1L, 130L);
+        assertThat(candidates(new MovieFilter(null, 2011, 2011, null, null), Long.MIN_VALUE))
+                .containsExactly(2L);
+        assertThat(candidates(new MovieFilter(null, null, null, null, true), Long.MIN_VALUE))
+                .containsExactly(1L, 2L, 130L);
+        assertThat(candidates(new MovieFilter(null, null, null, null, false), Long.MIN_VALUE))
+                .containsExactly(4L, 70L);
+    }
+
+    @Test
+    @DisplayName("should merge a range's posting lists in id order, lazily and without repeats")
+    void shouldMergeRangeLazily() {
+        for (long id = 200; id < 260; id++) {
+            indexes.added(movie(id, null, 1990 + (int) (id % 7), (int) (id % 11), false));
+        }
+        // Mid-update, a movie sits under its old and new rating
+        indexes.added(movie(203, null, null, 10, false));
+
+        List<Long> all = candidates(new MovieFilter(null, null, null, 0, null), 100);
+        assertThat(all).isSorted().doesNotHaveDuplicates().hasSize(61).startsWith(130L, 200L, 201L);
+
+        Iterator<Long> page = indexes.candidates(new MovieFilter(null, 1990, 1996, null, null), 210).iterator();
+        assertThat(page.next()).isEqualTo(211L);
+        assertThat(page.next()).isEqualTo(212L);
+    }
+
+    @Test
+    @DisplayName("should walk ids in rating and createdAt order")
+    void shouldWalkInSortOrder() {
+        List<Long> byRating = new ArrayList<>();
+        indexes.ordered(MovieSort.RATING_DESC).forEachRemaining(byRating::add);
+        assertThat(byRating).containsExactly(1L, 2L, 3L, 130L, 70L, 4L);
+
+        List<Long> ascending = new ArrayList<>();
+        indexes.ordered(MovieSort.RATING).forEachRemaining(ascending::add);
+        assertThat(ascending).containsExactly(70L, 2L, 3L, 130L, 1L, 4L);
+
+        Movie late = movie(5, null, null, null, false);
+        late.setCreatedAt(late.getCreatedAt().plusDays(1));
+        indexes.added(late);
+        List<Long> newest = new ArrayList<>();
+        indexes.ordered(MovieSort.CREATED_AT_DESC).forEachRemaining(newest::add);
+        assertThat(newest).hasSize(7).startsWith(5L).doesNotHaveDuplicates();
+
+        indexes.removed(late);
+        List<Long> oldest = new ArrayList<>();
+        indexes.ordered(MovieSort.CREATED_AT).forEachRemaining(oldest::add);
+        assertThat(oldest).hasSize(6).doesNotContain(5L);
+    }
+}
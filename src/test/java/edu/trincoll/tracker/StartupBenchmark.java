@@ -0,0 +1,130 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Starts the app in fresh JVMs, as a new node would, and measures the time from launch to the
+ * first served request and the resident memory at that point. The plain boot jar is compared
+ * with the extracted app, with Spring's AOT bean definitions on top, and with the class archive
+ * recorded by trainStartupCache on top of that. Run with {@code ./gradlew startupBenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Startup Benchmark")
+class StartupBenchmark {
+
+    private static final int RUNS = 5;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private record Sample(long nanos, long rssKb) {}
+
+    @Test
+    @DisplayName("should serve the first request sooner with the AOT bean definitions and class archive")
+    void compareStartup() throws Exception {
+        String java = Objects.requireNonNull(System.getProperty("startup.java"), "Run with ./gradlew startupBenchmark");
+        Path dir = Path.of(Objects.requireNonNull(System.getProperty("startup.dir"), "Run with ./gradlew startupBenchmark"));
+        String bootJar = Objects.requireNonNull(System.getProperty("startup.bootJar"), "Run with ./gradlew startupBenchmark");
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("boot jar", List.of(java, "-jar", bootJar));
+        modes.put("extracted", List.of(java, "-jar", "app/app.jar"));
+        modes.put("+ aot", List.of(java, "-Dspring.aot.enabled=true", "-jar", "app/app.jar"));
+        modes.put("+ archive", List.of(java, "@jvm.args", "-jar", "app/app.jar"));
+
+        Map<String, List<Sample>> samples = new LinkedHashMap<>();
+        modes.keySet().forEach(mode -> samples.put(mode, new ArrayList<>()));
+        // Interleaved, so drift in the machine's load spreads across every mode
+        for (int run = 0; run < RUNS; run++) {
+            for (var mode : modes.entrySet()) {
+                samples.get(mode.getKey()).add(start(mode.getValue(), dir, mode.getKey(), run));
+            }
+        }
+
+        System.out.printf("%d fresh JVMs per mode, %s%n", RUNS, java);
+        samples.forEach((mode, runs) -> {
+            Benchmarks.Samples nanos = Benchmarks.Samples.of(runs.stream().mapToLong(Sample::nanos).toArray());
+            Benchmarks.Samples rss = Benchmarks.Samples.of(runs.stream().mapToLong(Sample::rssKb).toArray());
+            System.out.printf("%-10s first request p50 %6.0f ms  min %6.0f ms   rss p50 %,7d KB%n",
+                    mode, nanos.percentile(0.50) / 1e6, nanos.min() / 1e6, rss.percentile(0.50));
+        });
+        samples.values().forEach(runs -> assertThat(runs).hasSize(RUNS));
+    }
+
+    private static Sample start(List<String> launch, Path dir, String mode, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(launch);
+        command.addAll(List.of("--server.port=" + port, "--movies.persistence.enabled=false"));
+        Path log = Files.createDirectories(dir.resolve("runs")).resolve(mode.replaceAll("\\W+", " ").strip().replace(' ', '-') + "-" + run + ".log");
+        HttpRequest first = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/movies")).build();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            long launched = System.nanoTime();
+            Process process = new ProcessBuilder(command).directory(dir.toFile())
+                    .redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            try {
+                long deadline = launched + TIMEOUT.toNanos();
+                while (true) {
+                    if (!process.isAlive() || System.nanoTime() - deadline > 0) {
+                        throw new IllegalStateException(mode + " never served a request, see " + log);
+                    }
+                    try {
+                        if (client.send(first, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            break;
+                        }
+                    } catch (ConnectException notListening) {
+                        // Not up yet
+                    }
+                    Thread.sleep(5);
+                }
+                long served = System.nanoTime() - launched;
+                return new Sample(served, rssKb(process.pid()));
+            } finally {
+                process.destroy();
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Linux reports it in /proc; elsewhere ps does
+    private static long rssKb(long pid) throws Exception {
+        Path status = Path.of("/proc/" + pid + "/status");
+        if (Files.isReadable(status)) {
+            return Files.readAllLines(status).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .findFirst().orElseThrow();
+        }
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String rss = new String(ps.getInputStream().readAllBytes()).trim();
+        ps.waitFor();
+        return Long.parseLong(rss);
+    }
+}
@@ -0,0 +1,59 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Shows that title search cost grows with the number of matches rather than the catalog size.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Trigram Index Benchmark")
+class TrigramIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "star", "night", "river", "ghost", "summer", "city", "dark", "love", "last", "king",
+            "storm", "blue", "road", "house", "war", "moon", "silent", "lost", "iron", "garden"
+    };
+
+    @Test
+    @DisplayName("query time should grow sub-linearly with the catalog")
+    void queryCostIsSubLinear() {
+        int[] sizes = {10_000, 100_000, 1_000_000};
+        double[] nanosPerQuery = new double[sizes.length];
+
+        for (int s = 0; s < sizes.length; s++) {
+            TrigramIndex index = new TrigramIndex();
+            Random random = new Random(42);
+            for (int id = 1; id <= sizes[s]; id++) {
+                index.add(id, title(random, id));
+            }
+            // Selective query whose match count stays constant as the catalog grows
+            String query = "(" + Integer.toString(5_000, 36) + ")";
+
+            for (int i = 0; i < 2_000; i++) {
+                index.search(query);
+            }
+            int rounds = 5_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                index.search(query);
+            }
+            nanosPerQuery[s] = (System.nanoTime() - start) / (double) rounds;
+            System.out.printf("%,10d movies: %,10.0f ns/query%n", sizes[s], nanosPerQuery[s]);
+        }
+
+        // 100x more movies must cost far less than 100x more time
+        assertThat(nanosPerQuery[2] / nanosPerQuery[0]).isLessThan(20.0);
+    }
+
+    private static String title(Random random, int id) {
+        return WORDS[random.nextInt(WORDS.length)] + " "
+                + WORDS[random.nextInt(WORDS.length)] + " (" + Integer.toString(id, 36) + ")";
+    }
+}
@@ -0,0 +1,54 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Trigram Index Tests")
+class TrigramIndexTest {
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Test
+    @DisplayName("should find case-insensitive substrings in id order")
+    void shouldFindSubstrings() {
+        index.add(3, "Application");
+        index.add(1, "Apple");
+        index.add(2, "Banana");
+
+        assertThat(index.search("APP")).containsExactly(1L, 3L);
+        assertThat(index.search("plica")).containsExactly(3L);
+        assertThat(index.search("nan")).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("should not match titles that only share the query's trigrams")
+    void shouldVerifyCandidates() {
+        index.add(1, "abcxbcd");
+
+        assertThat(index.search("abcd")).isEmpty();
+        assertThat(index.search("xbcd")).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("should answer short queries by scanning")
+    void shouldHandleShortQueries() {
+        index.add(2, "Up");
+        index.add(1, "Jaws");
+
+        assertThat(index.search("u")).containsExactly(2L);
+        assertThat(index.search("")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("should forget removed titles")
+    void shouldRemoveTitles() {
+        index.add(1, "Alien");
+        index.add(2, "Aliens");
+        index.remove(1, "Alien");
+
+        assertThat(index.search("alien")).containsExactly(2L);
+        assertThat(index.search("al")).containsExactly(2L);
+    }
+}
@@ -0,0 +1,101 @@
+package edu.trincoll.tracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs the real server over HTTP with far more concurrent clients than Tomcat's platform pool
+ * has threads, once per execution mode, and compares throughput and tail latency.
+ * <p>
+ * Persistence is on, so every write parks its request thread until the group fsync lands;
+ * that wait is what exhausts a fixed pool. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Virtual Thread Load Benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int CLIENTS = 1_000;
+    private static final int PRELOADED = 10_000;
+    // One request in WRITE_EVERY is a durable create; the rest are reads
+    private static final int WRITE_EVERY = 5;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(15);
+
+    @TempDir
+    Path dir;
+
+    private record Result(String mode, Benchmarks.Samples latencies, long errors) {
+
+        void print() {
+            System.out.printf("%-8s %s  (%,d errors)%n", mode, latencies.latencies(MEASURE.toNanos() / 1e9), errors);
+        }
+    }
+
+    @Test
+    @DisplayName("should compare platform and virtual request threads under high concurrency")
+    void compareExecutionModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%,d clients, 1 in %d requests a durable create%n", CLIENTS, WRITE_EVERY);
+        platform.print();
+        virtual.print();
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (var context = Benchmarks.boot(
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--movies.persistence.enabled=true",
+                        "--movies.persistence.directory=" + dir.resolve(mode));
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI base = URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/movies");
+            HttpRequest.Builder json = HttpRequest.newBuilder().header("Content-Type", "application/json");
+            for (int n = 1; n <= PRELOADED; n++) {
+                client.send(json.copy().uri(base).POST(body(mode + " seed " + n)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+            }
+
+            AtomicLong titles = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            long warmEnd = System.nanoTime() + WARMUP.toNanos();
+            long end = warmEnd + MEASURE.toNanos();
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                workers.add(Benchmarks.client(clients, warmEnd, end, () -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    HttpRequest request = random.nextInt(WRITE_EVERY) == 0
+                            ? json.copy().uri(base).POST(body(mode + " " + titles.incrementAndGet())).build()
+                            : HttpRequest.newBuilder(base.resolve("movies/" + (1 + random.nextInt(PRELOADED)))).build();
+                    return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                }, status -> status < 300, errors));
+            }
+            return new Result(mode, Benchmarks.Samples.of(workers), errors.get());
+        }
+    }
+
+    private static HttpRequest.BodyPublisher body(String title) {
+        return HttpRequest.BodyPublishers.ofString("{\"title\":\"" + title + "\",\"director\":\"Load\",\"year\":2000}");
+    }
+}